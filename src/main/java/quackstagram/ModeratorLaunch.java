@@ -1,5 +1,6 @@
 package quackstagram;
 
+import quackstagram.controllers.EventSubscribers;
 import quackstagram.controllers.moderator.ModeratorController;
 import quackstagram.models.ModeratorModel;
 import quackstagram.views.moderator.ModeratorView;
@@ -15,7 +16,8 @@ import javax.swing.*;
  * This class contains the main method which sets up the application. The main
  * method is responsible for creating instances of the ModeratorModel,
  * ModeratorView, and ModeratorController. It then triggers the display of the
- * ModeratorView, allowing the moderator to interact with the application.
+ * ModeratorView, allowing the moderator to interact with the application. The
+ * {@link EventSubscribers} are registered first, as in the user application.
  * </p>
  */
 public class ModeratorLaunch {
@@ -24,6 +26,8 @@ public class ModeratorLaunch {
      * The main method that initializes and runs the moderator panel.
      */
     public static void main(String[] args) {
+        EventSubscribers.register();
+
         SwingUtilities.invokeLater(() -> {
             ModeratorModel model = new ModeratorModel();
             ModeratorView view = new ModeratorView();
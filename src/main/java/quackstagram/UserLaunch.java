@@ -1,6 +1,7 @@
 package quackstagram;
 
 import javax.swing.SwingUtilities;
+import quackstagram.controllers.EventSubscribers;
 import quackstagram.views.prelogin.SignInUI;
 
 /**
@@ -9,6 +10,8 @@ import quackstagram.views.prelogin.SignInUI;
  */
 public class UserLaunch {
     public static void main(String[] args) {
+        EventSubscribers.register();
+
         /**
          * Initializes the user interface on the Event Dispatch Thread (EDT),
          * ensuring thread safety for swing components.
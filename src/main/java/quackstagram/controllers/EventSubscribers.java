@@ -0,0 +1,53 @@
+package quackstagram.controllers;
+
+import quackstagram.models.EventBus;
+import quackstagram.models.FollowEvent;
+import quackstagram.models.LikeEvent;
+import quackstagram.models.Notification;
+import quackstagram.models.Picture;
+import quackstagram.models.UploadEvent;
+import quackstagram.utilities.FileHandler;
+
+/**
+ * The {@code EventSubscribers} class subscribes the side effects of user actions to their events on the
+ * {@link EventBus}: saving a like and notifying the owner of the picture, rebuilding the home timeline of a user who
+ * followed someone, and pushing an uploaded picture onto the home timelines of its owner's followers.
+ * <p>
+ * The subscribers are registered once, by the launchers, before any view is shown, so no event is published
+ * before its subscribers are listening, whichever part of the application publishes it.
+ * </p>
+ */
+public final class EventSubscribers {
+    private static boolean registered = false;
+
+    private EventSubscribers() {
+    }
+
+    /**
+     * Subscribes every side effect to its event, unless this was done already.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+
+        EventBus eventBus = EventBus.getInstance();
+        eventBus.subscribe(LikeEvent.class, event -> FileHandler.saveLike(event.getPicture()));
+        eventBus.subscribe(LikeEvent.class, EventSubscribers::notifyOwner);
+        eventBus.subscribe(FollowEvent.class,
+                event -> FileHandler.invalidateHomeTimeline(event.getFollower().getUsername()));
+        eventBus.subscribe(UploadEvent.class, event -> FileHandler.publishToFollowers(event.getPicture()));
+    }
+
+    /**
+     * Saves a notification for the owner of a liked picture, unless they liked it themselves.
+     */
+    private static void notifyOwner(LikeEvent event) {
+        Picture picture = event.getPicture();
+        if (!picture.isOwnedBy(event.getLikedBy())) {
+            FileHandler.saveNotification(new Notification(picture.getOwner(), event.getLikedBy(),
+                    picture.getPictureID()));
+        }
+    }
+}
@@ -7,8 +7,11 @@ import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import quackstagram.controllers.EventSubscribers;
 import quackstagram.utilities.FileHandler;
+import quackstagram.models.EventBus;
 import quackstagram.models.Picture;
+import quackstagram.models.UploadEvent;
 import quackstagram.models.User;
 import quackstagram.views.postlogin.ImageUploadUI;
 
@@ -36,6 +39,8 @@ public class ImageUploadController {
     /**
      * Handles the action of uploading an image by opening a file chooser dialog,
      * reading the selected image file, and saving the image with a caption.
+     * The new picture is then pushed onto the home timelines of the user's followers in the background,
+     * by the subscriber to the published {@link UploadEvent}, see {@link EventSubscribers}.
      * If the file selection is successful, the image is uploaded and saved;
      * otherwise, the process is aborted.
      *
@@ -51,6 +56,7 @@ public class ImageUploadController {
             Picture picture = Picture.createNewForUser(currentUser.getUsername(), caption);
             FileHandler.uploadImage(selectedFile, picture);
             FileHandler.savePicture(picture);
+            EventBus.getInstance().publish(new UploadEvent(picture));
         } catch (IOException ex) {
             JOptionPane.showMessageDialog(view, "Error saving image: " + ex.getMessage(), "Error",
                     JOptionPane.ERROR_MESSAGE);
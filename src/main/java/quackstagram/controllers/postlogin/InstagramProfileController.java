@@ -1,6 +1,9 @@
 package quackstagram.controllers.postlogin;
 
+import quackstagram.controllers.EventSubscribers;
 import quackstagram.utilities.FileHandler;
+import quackstagram.models.EventBus;
+import quackstagram.models.FollowEvent;
 import quackstagram.models.User;
 import quackstagram.views.postlogin.InstagramProfileUI;
 
@@ -8,6 +11,8 @@ import quackstagram.views.postlogin.InstagramProfileUI;
 /**
  * The {@code InstagramProfileController} class is responsible for managing the interaction between the profile view and the model.
  * It facilitates operations such as viewing a user's profile and following/unfollowing other users within the Quackstagram application.
+ * The side effects of a follow are carried out by subscribers to the {@link FollowEvent} on the {@link EventBus},
+ * see {@link EventSubscribers}.
  */
 public class InstagramProfileController {
     private InstagramProfileUI view;
@@ -40,11 +45,24 @@ public class InstagramProfileController {
 
     /**
      * Handles the action of the current user deciding to follow the target user.
-     * This method updates the current user's list of followed users to include the target user
-     * and saves the updated user information to persistent storage.
+     * This method updates the current user's list of followed users to include the target user,
+     * and the target user's followers count, saves both users to persistent storage on this thread, so their
+     * state is serialized while no other thread changes it, and publishes a {@link FollowEvent}, whose subscriber
+     * has the current user's home timeline rebuilt on its next read, so that it includes the target user's
+     * pictures.
      */
     public void handleFollowAction() {
-        this.currentUser.addUserToFollow(targetUser);
-        FileHandler.saveUser(this.currentUser);
+        if (FileHandler.follow(this.currentUser, targetUser)) {
+            EventBus.getInstance().publish(new FollowEvent(this.currentUser, targetUser));
+        }
+    }
+
+    /**
+     * Checks whether the current user follows the target user.
+     *
+     * @return true if the current user follows the target user
+     */
+    public boolean isFollowing() {
+        return FileHandler.isFollowing(this.currentUser, targetUser);
     }
 }
@@ -1,19 +1,25 @@
 package quackstagram.controllers.postlogin;
 
-import quackstagram.utilities.FileHandler;
-import quackstagram.models.Notification;
+import java.util.List;
+
+import quackstagram.controllers.EventSubscribers;
+import quackstagram.utilities.FeedService;
+import quackstagram.models.EventBus;
+import quackstagram.models.LikeEvent;
 import quackstagram.models.Picture;
 import quackstagram.models.User;
-import quackstagram.views.postlogin.NotificationsUI;
 import quackstagram.views.postlogin.QuakstagramHomeUI;
 
 /**
  * The {@code QuakstagramHomeController} class manages the home UI of the Quakstagram application,
- * facilitating interactions such as liking pictures and receiving notifications.
+ * facilitating interactions such as liking pictures, receiving notifications and paging through the feed.
+ * The side effects of a like are carried out by subscribers to the {@link LikeEvent} on the {@link EventBus},
+ * see {@link EventSubscribers}.
  */
 public class QuakstagramHomeController {
     private QuakstagramHomeUI view;
     private User currentUser;
+    private FeedService feedService;
 
     /**
      * Constructs a {@code QuakstagramHomeController} with the specified home view and current user.
@@ -24,33 +30,32 @@ public class QuakstagramHomeController {
     public QuakstagramHomeController(QuakstagramHomeUI view, User currentUser) {
         this.view = view;
         this.currentUser = currentUser;
+        this.feedService = new FeedService(currentUser);
+    }
+
+    /**
+     * Fetches the next page of the home feed.
+     *
+     * @param after The last {@link Picture} shown so far, or {@code null} to fetch the first page.
+     * @return Up to {@link FeedService#PAGE_SIZE} pictures that follow {@code after}, newest first.
+     */
+    public List<Picture> getFeedPage(Picture after) {
+        return feedService.getPage(after, FeedService.PAGE_SIZE);
     }
 
     /**
-     * Adds a like to a given picture and updates the picture's like count.
-     * If the current user is not the owner of the picture, a notification is created
-     * and saved for the owner of the picture to inform them of the like.
+     * Adds the like of the current user to a given picture and updates the picture's like count,
+     * unless the current user liked the picture already.
+     * The picture is saved, and the owner of the picture notified if it is not the current user,
+     * in the background by the subscribers to the published {@link LikeEvent}.
      *
      * @param picture The {@link Picture} object being liked.
-     * @param notificationsUI The {@link NotificationsUI} object used to update notifications view when a new like is added.
      * @return The updated like count of the picture after adding the like.
      */
-    public int addLike(Picture picture, NotificationsUI notificationsUI) {
-        // Add the like to the picture
-        picture.addLike();
-        FileHandler.savePicture(picture);
-    
-        // Check if the current user is the owner of the picture
-        if (!currentUser.getUsername().equals(picture.getOwner())) {
-            // Create a notification for the owner of the picture
-            Notification notification = new Notification(picture.getOwner(), currentUser.getUsername(),
-                    picture.getPictureID());
-            notification.setNotificationsUI(notificationsUI);
-            picture.addObserver(notification);
-            FileHandler.saveNotification(notification);
+    public int addLike(Picture picture) {
+        if (picture.addLike(currentUser.getUsername())) {
+            EventBus.getInstance().publish(new LikeEvent(picture, currentUser.getUsername()));
         }
-    
         return picture.getLikesCount();
     }
-       
 }
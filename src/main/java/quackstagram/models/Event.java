@@ -0,0 +1,8 @@
+package quackstagram.models;
+
+/**
+ * Marks the objects that can be published on the {@link EventBus}. An event describes something a user did,
+ * such as liking a picture, and carries what its subscribers need to carry out the side effects of the action.
+ */
+public interface Event {
+}
@@ -0,0 +1,130 @@
+package quackstagram.models;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the {@link Event}s of user actions to their subscribers on a background thread, so the action
+ * itself returns at once and its side effects, such as writing to disk, do not hold up the user interface.
+ * <p>
+ * The bus extends the Observer Design Pattern: {@link EventObserver}s subscribe to the events of one type and
+ * receive each of them, and the bus is also a {@link Subject} whose plain {@link Observer}s are updated after
+ * every event has been handled, for example to refresh a view. Events are handled one at a time, in the order they
+ * were published, and subscribers are called in the order they subscribed. Events that are still queued when the
+ * application exits are handled before it does, for up to {@link #SHUTDOWN_TIMEOUT_SECONDS} seconds.
+ * </p>
+ */
+public class EventBus implements Subject {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static EventBus eventBus = null;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-bus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private EventBus() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            dispatcher.shutdown();
+            try {
+                dispatcher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "event-bus-shutdown"));
+    }
+
+    /**
+     * Returns the event bus shared by the application, creating it if it does not exist.
+     *
+     * @return The shared event bus.
+     */
+    public static synchronized EventBus getInstance() {
+        if (eventBus == null) {
+            eventBus = new EventBus();
+        }
+        return eventBus;
+    }
+
+    /**
+     * Subscribes an observer to the events of the given type, including its subtypes.
+     *
+     * @param type The type of the events to receive.
+     * @param observer The observer to call for each event.
+     */
+    public <E extends Event> void subscribe(Class<E> type, EventObserver<? super E> observer) {
+        subscriptions.add(new Subscription<>(type, observer));
+    }
+
+    /**
+     * Unsubscribes an observer from every event type it subscribed to.
+     *
+     * @param observer The observer to unsubscribe.
+     */
+    public void unsubscribe(EventObserver<?> observer) {
+        subscriptions.removeIf(subscription -> subscription.observer == observer);
+    }
+
+    /**
+     * Queues an event for its subscribers and returns without waiting for them.
+     *
+     * @param event The event to publish.
+     */
+    public void publish(Event event) {
+        dispatcher.execute(() -> {
+            for (Subscription<?> subscription : subscriptions) {
+                try {
+                    subscription.deliver(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // One failing subscriber does not keep the event from the others
+                }
+            }
+            notifyObservers();
+        });
+    }
+
+    @Override
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Notifies all the observers that an event has been handled. Called on the thread of the bus.
+     */
+    @Override
+    public void notifyObservers() {
+        for (Observer observer : observers) {
+            observer.update();
+        }
+    }
+
+    /**
+     * An observer together with the type of the events it receives.
+     */
+    private static class Subscription<E extends Event> {
+        private final Class<E> type;
+        private final EventObserver<? super E> observer;
+
+        Subscription(Class<E> type, EventObserver<? super E> observer) {
+            this.type = type;
+            this.observer = observer;
+        }
+
+        void deliver(Event event) {
+            if (type.isInstance(event)) {
+                observer.update(type.cast(event));
+            }
+        }
+    }
+}
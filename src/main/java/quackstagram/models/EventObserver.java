@@ -0,0 +1,17 @@
+package quackstagram.models;
+
+/**
+ * Defines an observer of the events of one type published on the {@link EventBus}.
+ * Unlike an {@link Observer}, which is only told that something changed, an event observer receives the event.
+ *
+ * @param <E> The type of the events observed.
+ */
+public interface EventObserver<E extends Event> {
+
+    /**
+     * Called by the event bus, on its own thread, for every published event of the observed type.
+     *
+     * @param event The published event.
+     */
+    void update(E event);
+}
@@ -0,0 +1,30 @@
+package quackstagram.models;
+
+/**
+ * Published when a user follows another user. The follow is already added and both users saved when the event is
+ * published, on the thread that changed them, so subscribers, which run on the event bus thread, only read the
+ * users' usernames; the follower's home timeline is rebuilt by a subscriber.
+ */
+public class FollowEvent implements Event {
+    private final User follower;
+    private final User followed;
+
+    /**
+     * Constructs the event of a follow.
+     *
+     * @param follower The user who followed.
+     * @param followed The user who was followed.
+     */
+    public FollowEvent(User follower, User followed) {
+        this.follower = follower;
+        this.followed = followed;
+    }
+
+    public User getFollower() {
+        return follower;
+    }
+
+    public User getFollowed() {
+        return followed;
+    }
+}
@@ -0,0 +1,105 @@
+package quackstagram.models;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates unique, time-ordered 64-bit IDs in the Snowflake layout, so that two pictures uploaded in the same
+ * second no longer get the same ID, and sorting by ID sorts by upload time.
+ * <p>
+ * An ID holds, from the most significant bit: a zero sign bit, 41 bits of milliseconds since
+ * {@link #EPOCH_MILLIS} (enough for 69 years), a 10-bit node ID and a 12-bit sequence number that counts the
+ * IDs issued within one millisecond. The node ID is read from the {@code quackstagram.nodeId} system property
+ * and defaults to 0, it only has to differ between processes that upload at the same time.
+ * </p>
+ * <p>
+ * IDs are issued without locking: the last issued ID is kept in an {@link AtomicLong} and each new one is claimed
+ * with a compare-and-set. When more than 4096 IDs are requested in one millisecond, the generator moves on to the
+ * next millisecond ahead of the clock instead of waiting, so IDs always keep increasing.
+ * </p>
+ */
+public class IdGenerator {
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    // Generated IDs pass this value 262 seconds after the epoch, Unix-second IDs of older pictures stay far below it
+    private static final long MIN_GENERATED_ID = 1L << 40;
+
+    private static IdGenerator idGenerator = null;
+    private final long nodeBits;
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Constructs a generator for the given node.
+     *
+     * @param nodeId The ID of this node, from 0 to 1023.
+     */
+    public IdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Returns the generator shared by the application, creating it if it does not exist.
+     *
+     * @return The shared generator.
+     */
+    public static synchronized IdGenerator getInstance() {
+        if (idGenerator == null) {
+            idGenerator = new IdGenerator(Long.getLong("quackstagram.nodeId", 0));
+        }
+        return idGenerator;
+    }
+
+    /**
+     * Issues a new ID, greater than every ID issued before by this generator.
+     *
+     * @return The new ID.
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastId.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long lastMillis = last >>> TIMESTAMP_SHIFT;
+
+            long next;
+            if (now > lastMillis) {
+                next = (now << TIMESTAMP_SHIFT) | nodeBits;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1; // Same millisecond, or the clock went back: next sequence number
+            } else {
+                next = ((lastMillis + 1) << TIMESTAMP_SHIFT) | nodeBits; // Sequence used up: borrow the next millisecond
+            }
+
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an ID was issued by a generator, rather than being the Unix time in seconds that older
+     * pictures use as their ID.
+     *
+     * @param id The ID to check.
+     * @return {@code true} if the ID was issued by a generator.
+     */
+    public static boolean isGenerated(long id) {
+        return id >= MIN_GENERATED_ID;
+    }
+
+    /**
+     * Returns the time an ID was issued at.
+     *
+     * @param id An ID issued by a generator.
+     * @return The time in milliseconds since the Unix epoch.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+}
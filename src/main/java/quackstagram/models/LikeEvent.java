@@ -0,0 +1,29 @@
+package quackstagram.models;
+
+/**
+ * Published when a user likes a picture. The like is already counted on the picture when the event is published,
+ * its subscribers store the picture and notify its owner.
+ */
+public class LikeEvent implements Event {
+    private final Picture picture;
+    private final String likedBy;
+
+    /**
+     * Constructs the event of a like.
+     *
+     * @param picture The picture that was liked.
+     * @param likedBy The username of the user who liked the picture.
+     */
+    public LikeEvent(Picture picture, String likedBy) {
+        this.picture = picture;
+        this.likedBy = likedBy;
+    }
+
+    public Picture getPicture() {
+        return picture;
+    }
+
+    public String getLikedBy() {
+        return likedBy;
+    }
+}
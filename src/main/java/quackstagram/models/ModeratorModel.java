@@ -1,21 +1,16 @@
 package quackstagram.models;
 
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.io.BufferedReader;
-import java.nio.file.Files;
+
+import quackstagram.utilities.FileHandler;
 
 /**
  * The {@code ModeratorModel} class represents the data model for the moderator panel.
- * It provides access to user and picture data, loading from and saving to persistent storage.
+ * It provides access to user and picture data, loading from and saving to persistent storage
+ * through {@link FileHandler}.
  */
 public class ModeratorModel {
-    private static final Path USERS_FILE = Paths.get("data", "users.txt");
-    private static final Path PICTURES_FILE = Paths.get("data", "pictures.txt");
     private List<User> userList;
 
     /**
@@ -27,19 +22,10 @@ public class ModeratorModel {
     }
 
     /**
-     * Loads users from the {@code USERS_FILE} into the user list.
+     * Loads all users into the user list.
      */
     private void loadUsers() {
-        try (BufferedReader reader = Files.newBufferedReader(USERS_FILE)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] userDetails = line.split("; ");
-                User user = User.createInstance(userDetails);
-                userList.add(user);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        userList.addAll(FileHandler.getAllUsers());
     }
 
     /**
@@ -71,28 +57,19 @@ public class ModeratorModel {
      * @return a list of {@code Picture} objects
      */
     public List<Picture> getPicturesForUser(String username) {
-        List<Picture> pictures = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(PICTURES_FILE)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] pictureDetails = line.split("; ");
-                if (pictureDetails[1].equals(username)) {
-                    pictures.add(Picture.createInstance(pictureDetails));
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        List<Picture> pictures = FileHandler.getUserPictures(username);
 
         // Sort pictures by timestamp
-        pictures.sort(Comparator.comparing(Picture::getDate).reversed());
+        pictures.sort(Picture.NEWEST_FIRST);
         return pictures;
     }
 
     /**
-     * Refreshes the list of users by re-loading them from the file.
+     * Refreshes the list of users by reading the changes the user application saved to storage since the
+     * users were loaded, such as new users, and re-loading the list.
      */
     public void refreshUserList() {
+        FileHandler.refresh();
         userList.clear();
         loadUsers();
     }
@@ -1,9 +1,13 @@
 package quackstagram.models;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.TimeZone;
 
 import quackstagram.views.postlogin.NotificationsUI;
@@ -12,13 +16,26 @@ import quackstagram.views.postlogin.NotificationsUI;
  * Represents a notification generated in response to an event in the Quackstagram application,
  * such as a user liking a picture. Implements the Observer interface as part of the Observer Design Pattern,
  * allowing notifications to be updated in response to observed events.
+ * <p>
+ * A notification is a rollup of every like a picture received within one {@link #ROLLUP_WINDOW}: further likes
+ * are folded into it with {@link #fold}, which counts them and keeps the latest users who liked the picture,
+ * so it reads "Jerome and 12 others liked your picture" instead of taking up thirteen rows.
+ * </p>
  */
 public class Notification extends AbstractModel<Notification> implements Observer {
+    /**
+     * The time unit likes are grouped by: likes of the same picture within the same hour make up one rollup.
+     */
+    public static final ChronoUnit ROLLUP_WINDOW = ChronoUnit.HOURS;
+    private static final int MAX_ACTORS = 3; // Users who liked the picture that a rollup remembers
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private NotificationsUI notificationsUI; // Reference to the Notifications UI to update UI on notification
-    private String username; // Username of the user whose image was liked
-    private String likedBy; // Username of the user who liked the image
+    private final int recipientId; // ID of the username of the user whose image was liked
+    private int[] actorIds; // IDs of the usernames of the latest users who liked the image, latest first
     private String pictureId; // ID of the picture that was liked
-    private String date; // Date and time when the like occurred
+    private String date; // Date and time when the latest like occurred
+    private int count; // Number of likes rolled up into this notification
 
     /**
      * Constructs a Notification with all necessary details.
@@ -29,10 +46,25 @@ public class Notification extends AbstractModel<Notification> implements Observe
      * @param date The date and time when the picture was liked.
      */
     public Notification(String username, String likedBy, String pictureId, String date) {
-        this.username = username;
-        this.likedBy = likedBy;
+        this(username, new ArrayList<>(List.of(likedBy)), pictureId, date, 1);
+    }
+
+    /**
+     * Constructs a rollup of several likes of a picture.
+     *
+     * @param username The username of the user whose picture was liked.
+     * @param actors The usernames of the latest users who liked the picture, latest first.
+     * @param pictureId The ID of the picture that was liked.
+     * @param date The date and time when the picture was last liked.
+     * @param count The number of likes.
+     */
+    public Notification(String username, ArrayList<String> actors, String pictureId, String date, int count) {
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
+        this.recipientId = dictionary.getId(username);
+        this.actorIds = dictionary.getIds(actors);
         this.pictureId = pictureId;
         this.date = date;
+        this.count = count;
     }
 
     /**
@@ -43,12 +75,8 @@ public class Notification extends AbstractModel<Notification> implements Observe
      * @param pictureId The ID of the picture that was liked.
      */
     public Notification(String username, String likedBy, String pictureId) {
-        this.username = username;
-        this.likedBy = likedBy;
-        this.pictureId = pictureId;
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        this.date = ZonedDateTime.now(TimeZone.getTimeZone("UTC").toZoneId()).format(formatter);
+        this(username, likedBy, pictureId,
+                ZonedDateTime.now(TimeZone.getTimeZone("UTC").toZoneId()).format(DATE_FORMAT));
     }
 
     
@@ -60,7 +88,7 @@ public class Notification extends AbstractModel<Notification> implements Observe
      */
     @Override
     public void update() {
-        String message = String.format("User %s liked picture %s on %s", likedBy, pictureId, date);
+        String message = String.format("User %s liked picture %s on %s", getLikedBy(), pictureId, date);
         System.out.println(message);
         notificationsUI.updateNotifications();
     }
@@ -76,45 +104,139 @@ public class Notification extends AbstractModel<Notification> implements Observe
 
     /**
      * Factory method to create a Notification instance from an array of string arguments.
+     * The expected order is recipient, space-separated list of the users who liked the picture,
+     * picture ID, date and the number of likes, which may be left out for a single like.
      *
      * @param args An array of strings containing notification details.
      * @return A new Notification instance.
-     * @throws RuntimeException If the arguments do not match the expected format.
+     * @throws RuntimeException If the arguments do not match the expected format, or name no user who liked
+     *                          the picture.
      */
     public static Notification createInstance(String[] args) throws RuntimeException {
-        if (args.length != 4) {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println(String.join(", ", args));
+            throw new RuntimeException("Couldn't parse notifications line, expected 4 or 5 arguments!");
+        }
+        if (args[1].isBlank()) {
             System.out.println(String.join(", ", args));
-            throw new RuntimeException("Couldn't parse notifications line, expected 4 arguments!");
+            throw new RuntimeException("Couldn't parse notifications line, no user liked the picture!");
         }
-        return new Notification(args[0], args[1], args[2], args[3]);
+        int count = args.length == 5 ? Integer.parseInt(args[4]) : 1;
+        return new Notification(args[0], new ArrayList<>(Arrays.asList(args[1].split(" "))), args[2], args[3],
+                count);
+    }
+
+    /**
+     * Folds a like into this rollup if it is a like of the same picture within the same window.
+     *
+     * @param like The notification of the new like, or of the likes of another rollup.
+     * @return {@code true} if the like was folded in, {@code false} if it belongs to another rollup.
+     */
+    public boolean fold(Notification like) {
+        if (!isIdEqualTo(like)) {
+            return false;
+        }
+        int[] folded = new int[MAX_ACTORS];
+        int size = 0;
+        for (int[] ids : new int[][] { like.actorIds, actorIds }) { // The new likes first
+            for (int i = 0; i < ids.length && size < MAX_ACTORS; i++) {
+                if (!contains(folded, size, ids[i])) {
+                    folded[size++] = ids[i];
+                }
+            }
+        }
+        actorIds = Arrays.copyOf(folded, size);
+        count += like.count;
+        if (like.date.compareTo(date) > 0) { // The format sorts in time order
+            date = like.date;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether this notification was last updated before the window of the given one started,
+     * so it can no longer be folded with it nor with any later like.
+     *
+     * @param like The notification of a like.
+     * @return {@code true} if this notification belongs to an earlier window.
+     */
+    public boolean isBeforeWindowOf(Notification like) {
+        return windowStart().isBefore(like.windowStart());
+    }
+
+    /**
+     * Checks whether the latest like of this notification is more than the given number of days old.
+     *
+     * @param days The age in days.
+     * @return {@code true} if the notification is older.
+     */
+    public boolean isOlderThan(long days) {
+        return LocalDateTime.parse(date, DATE_FORMAT).isBefore(LocalDateTime.now(ZoneOffset.UTC).minusDays(days));
+    }
+
+    private static boolean contains(int[] ids, int size, int id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LocalDateTime windowStart() {
+        return LocalDateTime.parse(date, DATE_FORMAT).truncatedTo(ROLLUP_WINDOW);
     }
 
     public String getUsername() {
-        return username;
+        return UsernameDictionary.getInstance().getUsername(recipientId);
+    }
+
+    /**
+     * Returns the username of the latest user who liked the picture.
+     *
+     * @return The username.
+     */
+    public String getLikedBy() {
+        return UsernameDictionary.getInstance().getUsername(actorIds[0]);
+    }
+
+    public int getCount() {
+        return count;
     }
 
     @Override
     public String[] serialize() {
-        return new String[] { username, likedBy, pictureId, date };
+        return new String[] { getUsername(),
+            String.join(" ", UsernameDictionary.getInstance().getUsernames(actorIds, actorIds.length)), pictureId,
+            date, String.valueOf(count) };
     }
 
     @Override
     public boolean isUpdatable() {
-        return false;
+        return true;
     }
 
+    /**
+     * Notifications are identified by their recipient, their picture and their window, since all the likes
+     * of a picture within a window are rolled up into one notification.
+     */
     @Override
     public boolean isIdEqualTo(Notification notification) {
-        return this.username.equals(notification.getUsername());
+        return this.recipientId == notification.recipientId
+                && this.pictureId.equals(notification.pictureId)
+                && windowStart().equals(notification.windowStart());
     }
 
     public String getMessage() {
+        String likedBy = getLikedBy();
+        if (count > 1) {
+            likedBy += " and " + (count - 1) + (count == 2 ? " other" : " others");
+        }
         return likedBy + " liked your picture - " + getElapsedTime(date) + " ago";
     }
 
     private String getElapsedTime(String timestamp) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        LocalDateTime timeOfNotification = LocalDateTime.parse(timestamp, formatter);
+        LocalDateTime timeOfNotification = LocalDateTime.parse(timestamp, DATE_FORMAT);
         LocalDateTime currentTime = LocalDateTime.now();
 
         long daysBetween = ChronoUnit.DAYS.between(timeOfNotification, currentTime);
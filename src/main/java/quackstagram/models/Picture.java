@@ -1,24 +1,56 @@
 package quackstagram.models;
 
 import java.time.Instant;
-import java.time.ZonedDateTime;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.TimeZone;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents a picture in the Quackstagram application. This class implements the Subject part
  * of the Observer Design Pattern, allowing Observers to subscribe to changes in the picture's state,
  * such as when a picture receives a new like.
+ * <p>
+ * Likes may be added from several threads at once. They are counted in a {@link LongAdder}, whose striped cells
+ * let concurrent likes of a popular picture count without contending on a single counter, and are folded into
+ * the like count with {@link #foldLikes()} before the picture is saved.
+ * </p>
+ * <p>
+ * A user can like a picture only once: the users who liked it are kept in {@link #LIKER_STRIPES} stripes of
+ * {@link UserIdSet}s, chosen by the lowest bits of the user's ID and created on first use. Each stripe is checked
+ * and updated under its own short lock, so concurrent likes of a popular picture are spread over the stripes
+ * instead of queueing on one lock, while two likes of the same user always meet in the same stripe and count once.
+ * Likes counted before the likers were kept have no liker.
+ * </p>
  */
 public class Picture extends AbstractModel<Picture> implements Subject {
-    private List<Observer> observers = new ArrayList<>();
+    /**
+     * Orders pictures from the most recently uploaded to the oldest, breaking ties by picture ID.
+     */
+    public static final Comparator<Picture> NEWEST_FIRST =
+            Comparator.comparingLong(Picture::getTimestamp).thenComparing(Picture::getPictureID).reversed();
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private List<Observer> observers = new CopyOnWriteArrayList<>();
     private String pictureID;
-    private String owner;
+    private final int ownerId; // ID of the owner's username
     private String caption;
     private String date;
-    private int likesCount;
+    private int likesCount; // Likes folded from pendingLikes, guarded by this picture's lock
+    private final LongAdder pendingLikes = new LongAdder(); // Likes added since the last fold
+    private static final int LIKER_STRIPES = 8; // A power of two
+    private static final int STRIPE_BITS = Integer.numberOfTrailingZeros(LIKER_STRIPES);
+    // Users who liked the picture, each stripe holding the IDs shifted past its bits and guarded by itself
+    private final AtomicReferenceArray<UserIdSet> likers = new AtomicReferenceArray<>(LIKER_STRIPES);
+    private long timestamp = -1; // Upload time in milliseconds, worked out from the ID on first use
 
     /**
      * Constructs a new Picture instance with specified details.
@@ -30,11 +62,33 @@ public class Picture extends AbstractModel<Picture> implements Subject {
      * @param likesCount The initial number of likes for the picture.
      */
     public Picture(String pictureId, String owner, String caption, String date, int likesCount) {
+        this(pictureId, owner, caption, date, likesCount, Collections.emptyList());
+    }
+
+    /**
+     * Constructs a new Picture instance with specified details and the users who liked it.
+     *
+     * @param pictureId The unique identifier for the picture.
+     * @param owner The username of the user who owns the picture.
+     * @param caption The caption of the picture.
+     * @param date The upload date of the picture.
+     * @param likesCount The initial number of likes for the picture.
+     * @param likedBy The usernames of the users who liked the picture.
+     */
+    public Picture(String pictureId, String owner, String caption, String date, int likesCount,
+            List<String> likedBy) {
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
         this.pictureID = pictureId;
-        this.owner = owner;
+        this.ownerId = dictionary.getId(owner);
         this.caption = caption;
         this.date = date;
         this.likesCount = likesCount;
+        for (String username : likedBy) {
+            if (!username.isEmpty()) {
+                int id = dictionary.getId(username);
+                likerStripe(id).add(id >>> STRIPE_BITS);
+            }
+        }
     }
 
     /**
@@ -45,12 +99,14 @@ public class Picture extends AbstractModel<Picture> implements Subject {
      * @throws RuntimeException If the input arguments do not match the expected format.
      */
     public static Picture createInstance(String[] args) throws RuntimeException {
-        if (args.length != 5) {
+        if (args.length != 5 && args.length != 6) {
             System.out.println(String.join(", ", args));
-            throw new RuntimeException("Could parse picture line, expected 5 arguments!");
+            throw new RuntimeException("Could parse picture line, expected 5 or 6 arguments!");
         }
         int likes = Integer.parseInt(args[4]);
-        return new Picture(args[0], args[1], args[2], args[3], likes);
+        // Pictures saved before their likers were kept, or liked by no one, have no likers field
+        List<String> likedBy = args.length == 6 ? Arrays.asList(args[5].split(" ")) : Collections.emptyList();
+        return new Picture(args[0], args[1], args[2], args[3], likes, likedBy);
     }
 
     /**
@@ -61,14 +117,15 @@ public class Picture extends AbstractModel<Picture> implements Subject {
      * @return A new Picture instance with a generated ID and the current timestamp.
      */
     public static Picture createNewForUser(String owner, String caption) {
-        // UNIX timestamp
-        String pictureId = String.valueOf(Instant.now().getEpochSecond());
+        // Time-ordered and unique, even for pictures uploaded within the same millisecond
+        long id = IdGenerator.getInstance().nextId();
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String formattedCurrentDate = ZonedDateTime.now(TimeZone.getTimeZone("UTC").toZoneId()).format(formatter);
+        String formattedCurrentDate = Instant.ofEpochMilli(IdGenerator.timestampOf(id))
+                .atZone(ZoneOffset.UTC)
+                .format(DATE_FORMAT);
 
         return new Picture(
-                pictureId,
+                String.valueOf(id),
                 owner,
                 caption,
                 formattedCurrentDate,
@@ -77,7 +134,8 @@ public class Picture extends AbstractModel<Picture> implements Subject {
 
     @Override
     public String[] serialize() {
-        return new String[] { pictureID, owner, caption, date, String.valueOf(likesCount) };
+        return new String[] { pictureID, getOwner(), caption, date, String.valueOf(getLikesCount()),
+            String.join(" ", getLikedBy()) };
     }
 
     @Override
@@ -91,18 +149,111 @@ public class Picture extends AbstractModel<Picture> implements Subject {
     }
 
     public String getOwner() {
-        return this.owner;
+        return UsernameDictionary.getInstance().getUsername(ownerId);
     }
 
     /**
-     * Increases the number of likes for this picture by one and notifies the
-     * observers.
+     * Returns the ID of the owner's username in the {@link UsernameDictionary}.
+     *
+     * @return The ID of the owner.
+     */
+    public int getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Checks whether a user owns this picture.
+     *
+     * @param username The username of the user.
+     * @return {@code true} if the user owns the picture.
+     */
+    public boolean isOwnedBy(String username) {
+        return UsernameDictionary.getInstance().findId(username) == ownerId;
+    }
+
+    /**
+     * Adds the like of a user to this picture, unless they liked it already, and notifies the
+     * observers. Safe to call from any thread.
      * 
      * Observer Design Pattern
+     *
+     * @param username The username of the user who likes the picture.
+     * @return {@code true} if the like was added, {@code false} if the user liked the picture already.
      */
-    public void addLike() {
-        likesCount++;
+    public boolean addLike(String username) {
+        int id = UsernameDictionary.getInstance().getId(username);
+        UserIdSet stripe = likerStripe(id);
+        synchronized (stripe) {
+            if (!stripe.add(id >>> STRIPE_BITS)) {
+                return false;
+            }
+        }
+        pendingLikes.increment();
         notifyObservers();
+        return true;
+    }
+
+    private UserIdSet likerStripe(int id) {
+        int index = id & (LIKER_STRIPES - 1);
+        UserIdSet stripe = likers.get(index);
+        if (stripe == null) {
+            likers.compareAndSet(index, null, new UserIdSet());
+            stripe = likers.get(index);
+        }
+        return stripe;
+    }
+
+    /**
+     * Checks whether a user liked this picture.
+     *
+     * @param username The username of the user.
+     * @return {@code true} if the user liked the picture.
+     */
+    public boolean isLikedBy(String username) {
+        int id = UsernameDictionary.getInstance().findId(username);
+        if (id < 0) {
+            return false;
+        }
+        UserIdSet stripe = likerStripe(id);
+        synchronized (stripe) {
+            return stripe.contains(id >>> STRIPE_BITS);
+        }
+    }
+
+    /**
+     * Returns the usernames of the users who liked this picture.
+     *
+     * @return The usernames, in the order their users were first seen.
+     */
+    public List<String> getLikedBy() {
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < LIKER_STRIPES; i++) {
+            UserIdSet stripe = likers.get(i);
+            if (stripe != null) {
+                int low = i;
+                synchronized (stripe) {
+                    stripe.forEach(shifted -> ids.add(shifted << STRIPE_BITS | low));
+                }
+            }
+        }
+        ids.sort(null);
+
+        List<String> likedBy = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            likedBy.add(dictionary.getUsername(id));
+        }
+        return likedBy;
+    }
+
+    /**
+     * Folds the likes added since the last fold into the like count. Likes added while folding
+     * are kept for the next fold.
+     */
+    public synchronized void foldLikes() {
+        long added = pendingLikes.sum();
+        likesCount += (int) added;
+        pendingLikes.add(-added);
     }
 
     /**
@@ -142,8 +293,13 @@ public class Picture extends AbstractModel<Picture> implements Subject {
         return caption;
     }
 
-    public int getLikesCount() {
-        return likesCount;
+    /**
+     * Returns the number of likes of this picture, including the likes that are not folded yet.
+     *
+     * @return The number of likes.
+     */
+    public synchronized int getLikesCount() {
+        return likesCount + (int) pendingLikes.sum();
     }
 
     public String getPictureID() {
@@ -157,4 +313,28 @@ public class Picture extends AbstractModel<Picture> implements Subject {
     public String getDate() {
         return date;
     }
+
+    /**
+     * Returns the upload time of the picture, from its ID. Pictures uploaded before IDs were generated use
+     * the Unix time in seconds as their ID, and pictures with an ID that is not a number fall back to their date.
+     *
+     * @return The upload time in milliseconds since the Unix epoch, or 0 if it is unknown.
+     */
+    public long getTimestamp() {
+        if (timestamp < 0) {
+            try {
+                long id = Long.parseLong(pictureID);
+                timestamp = IdGenerator.isGenerated(id) ? IdGenerator.timestampOf(id) : id * 1000;
+            } catch (NumberFormatException e) {
+                try {
+                    timestamp = date.isEmpty()
+                            ? 0
+                            : LocalDateTime.parse(date, DATE_FORMAT).toInstant(ZoneOffset.UTC).toEpochMilli();
+                } catch (DateTimeParseException parseException) {
+                    timestamp = 0; // Sorted as the oldest picture rather than failing the whole sort
+                }
+            }
+        }
+        return timestamp;
+    }
 }
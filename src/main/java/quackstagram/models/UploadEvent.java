@@ -0,0 +1,22 @@
+package quackstagram.models;
+
+/**
+ * Published when a user uploaded a picture, once the picture and its image are stored. Its subscribers push
+ * the picture onto the home timelines of the user's followers.
+ */
+public class UploadEvent implements Event {
+    private final Picture picture;
+
+    /**
+     * Constructs the event of an upload.
+     *
+     * @param picture The uploaded picture.
+     */
+    public UploadEvent(Picture picture) {
+        this.picture = picture;
+    }
+
+    public Picture getPicture() {
+        return picture;
+    }
+}
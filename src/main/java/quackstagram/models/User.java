@@ -8,13 +8,19 @@ import java.util.Arrays;
  * encapsulates information about a user's identity, their social graph, and
  * their activity on the platform, including the number of posts made, followers
  * gained, and the accounts they are following.
+ * <p>
+ * The user and the accounts they follow are kept as their IDs from the {@link UsernameDictionary}, so
+ * following an account costs an {@code int} and checking it an integer comparison.
+ * </p>
  */
 public class User extends AbstractModel<User> {
     private String username;
+    private final int id; // ID of the username
     private String password;
     private String bio;
     private String passCode;
-    private ArrayList<String> followingUsers; // other users that this one follows
+    private int[] followingIds; // IDs of the other users that this one follows, in the order they were followed
+    private int followingCount;
     private int followersCount;
     private int postsCount;
 
@@ -32,11 +38,14 @@ public class User extends AbstractModel<User> {
      */
     public User(String username, String password, String bio,String passCode, ArrayList<String> followingUsers,
                 int followersCount, int postsCount) {
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
         this.username = username;
+        this.id = dictionary.getId(username);
         this.password = password;
         this.bio = bio;
         this.passCode = passCode;
-        this.followingUsers = followingUsers;
+        this.followingIds = dictionary.getIds(followingUsers);
+        this.followingCount = followingIds.length;
         this.followersCount = followersCount;
         this.postsCount = postsCount;
     }
@@ -53,13 +62,7 @@ public class User extends AbstractModel<User> {
      */
     public User(String username, String password, String bio, ArrayList<String> followingUsers,
                 int followersCount, int postsCount) {
-        this.username = username;
-        this.password = password;
-        this.bio = bio;
-        this.passCode = "0";
-        this.followingUsers = followingUsers;
-        this.followersCount = followersCount;
-        this.postsCount = postsCount;
+        this(username, password, bio, "0", followingUsers, followersCount, postsCount);
     }
 
     /**
@@ -99,7 +102,7 @@ public class User extends AbstractModel<User> {
             password,
             bio,
             String.valueOf(passCode),
-            String.join(" ", followingUsers),
+            String.join(" ", getFollowingUsers()),
             Integer.toString(followersCount),
             Integer.toString(postsCount)
         };
@@ -112,7 +115,7 @@ public class User extends AbstractModel<User> {
 
     @Override
     public boolean isIdEqualTo(User user) {
-        return this.username.equals(user.getUsername());
+        return this.id == user.id;
     }
 
     // Getter methods for user details
@@ -126,6 +129,15 @@ public class User extends AbstractModel<User> {
         return username;
     }
 
+    /**
+     * Returns the ID of the user's username in the {@link UsernameDictionary}.
+     *
+     * @return the ID of the user
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Returns the bio of the user.
      *
@@ -168,7 +180,7 @@ public class User extends AbstractModel<User> {
      * @return the following count of the user
      */
     public int getFollowingCount() {
-        return this.followingUsers.size();
+        return this.followingCount;
     }
 
     /**
@@ -212,8 +224,18 @@ public class User extends AbstractModel<User> {
     }
 
     public boolean followsUser(User targetUser) {
-        for (String followedUser : this.followingUsers) {
-            if (followedUser.equals(targetUser.getUsername())) {
+        return followsUser(targetUser.id);
+    }
+
+    /**
+     * Checks if this user follows the user with the given ID.
+     *
+     * @param userId the ID of the other user in the {@link UsernameDictionary}
+     * @return true if this user follows them, false otherwise
+     */
+    public boolean followsUser(int userId) {
+        for (int i = 0; i < followingCount; i++) {
+            if (followingIds[i] == userId) {
                 return true;
             }
         }
@@ -224,26 +246,40 @@ public class User extends AbstractModel<User> {
      * Adds a user to this user's list of followed users, if they're not already being followed.
      *
      * @param targetUser the user to follow
+     * @return true if the user was added, false otherwise
      */
-    public void addUserToFollow(User targetUser) {
+    public boolean addUserToFollow(User targetUser) {
         if (isIdEqualTo(targetUser)) {
             // can't follow ourselves
-            return;
+            return false;
         }
 
         if (followsUser(targetUser)) {
             // Already following
-            return;
+            return false;
         }
 
-        followingUsers.add(targetUser.getUsername());
+        if (followingCount == followingIds.length) {
+            followingIds = Arrays.copyOf(followingIds, Math.max(4, followingCount * 2));
+        }
+        followingIds[followingCount++] = targetUser.id;
+        return true;
     }
 
     public String getProfileImagePath() {
         return "img/profile/" + this.username + ".png";
     }
 
+    /**
+     * Returns the IDs of the users this user follows, in the order they were followed.
+     *
+     * @return the IDs in the {@link UsernameDictionary}
+     */
+    public int[] getFollowingIds() {
+        return Arrays.copyOf(followingIds, followingCount);
+    }
+
     public ArrayList<String> getFollowingUsers() {
-        return new ArrayList<String>(followingUsers);
+        return UsernameDictionary.getInstance().getUsernames(followingIds, followingCount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package quackstagram.models;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compact set of user IDs from the {@link UsernameDictionary}, laid out like a Roaring bitmap.
+ * <p>
+ * The IDs are grouped by their upper 16 bits, and the lower 16 bits of each group are kept in a container: a
+ * sorted {@code char} array while the group holds at most {@link #ARRAY_CONTAINER_LIMIT} IDs, and a bitmap of
+ * 65536 bits once it holds more. A set of a few users takes a few bytes, and a set of every user at most one bit
+ * per user, so even a popular picture stays small. Adding and looking up an ID costs a binary search among the
+ * groups and one in a small array, or a single bit operation.
+ * </p>
+ * <p>
+ * The set is not thread-safe.
+ * </p>
+ */
+public class UserIdSet {
+    private static final int ARRAY_CONTAINER_LIMIT = 4096; // Past this, a bitmap (8 KiB) is the smaller container
+
+    private char[] keys = new char[0]; // Upper 16 bits of each group, sorted
+    private Container[] containers = new Container[0];
+    private int groupCount = 0;
+    private int size = 0;
+
+    /**
+     * Adds an ID to the set.
+     *
+     * @param id The user ID, at least 0.
+     * @return {@code true} if the ID was not in the set yet.
+     */
+    public boolean add(int id) {
+        char key = (char) (id >>> 16);
+        int group = Arrays.binarySearch(keys, 0, groupCount, key);
+        if (group < 0) {
+            group = -group - 1;
+            insertGroup(group, key);
+        }
+
+        Container container = containers[group];
+        char low = (char) id;
+        if (container.contains(low)) {
+            return false;
+        }
+        if (container instanceof ArrayContainer && container.size() == ARRAY_CONTAINER_LIMIT) {
+            container = containers[group] = ((ArrayContainer) container).toBitmap();
+        }
+        container.add(low);
+        size++;
+        return true;
+    }
+
+    /**
+     * Checks whether an ID is in the set.
+     *
+     * @param id The user ID.
+     * @return {@code true} if the ID is in the set.
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int group = Arrays.binarySearch(keys, 0, groupCount, (char) (id >>> 16));
+        return group >= 0 && containers[group].contains((char) id);
+    }
+
+    /**
+     * Returns the number of IDs in the set.
+     *
+     * @return The number of IDs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calls the given action for every ID in the set, in increasing order.
+     *
+     * @param action The action to call.
+     */
+    public void forEach(IntConsumer action) {
+        for (int group = 0; group < groupCount; group++) {
+            containers[group].forEach(keys[group] << 16, action);
+        }
+    }
+
+    private void insertGroup(int group, char key) {
+        if (groupCount == keys.length) {
+            int capacity = Math.max(4, groupCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, group, keys, group + 1, groupCount - group);
+        System.arraycopy(containers, group, containers, group + 1, groupCount - group);
+        keys[group] = key;
+        containers[group] = new ArrayContainer();
+        groupCount++;
+    }
+
+    /**
+     * The lower 16 bits of the IDs in one group.
+     */
+    private interface Container {
+        boolean contains(char low);
+
+        void add(char low); // Only called for a value that is not in the container
+
+        int size();
+
+        void forEach(int high, IntConsumer action);
+    }
+
+    private static class ArrayContainer implements Container {
+        private char[] values = new char[4];
+        private int size = 0;
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        public void add(char low) {
+            int index = -Arrays.binarySearch(values, 0, size, low) - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_CONTAINER_LIMIT, size * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = low;
+            size++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static class BitmapContainer implements Container {
+        private final long[] words = new long[1 << 10];
+        private int size = 0;
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public void add(char low) {
+            words[low >>> 6] |= 1L << low;
+            size++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    action.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+}
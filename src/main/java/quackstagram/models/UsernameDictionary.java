@@ -0,0 +1,124 @@
+package quackstagram.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every username a dense integer ID. The models keep the users they refer to (followed accounts, picture
+ * owners, notification recipients and likers) as these IDs: an {@code int} instead of a reference to a string,
+ * compared with integer equality, and sets of users can be kept as a {@link UserIdSet}.
+ * <p>
+ * IDs are handed out from 0 in the order usernames are first seen, and only live as long as the application:
+ * the data files keep storing usernames, so nothing has to be migrated when the IDs differ on the next start.
+ * </p>
+ * <p>
+ * Usernames are looked up on every render, from the event dispatch thread and the loader threads at once, so
+ * lookups take no lock: only handing out a new ID does. The usernames are kept in an array that is published
+ * through a volatile field after every new ID, and copied into a larger one when it is full.
+ * </p>
+ */
+public class UsernameDictionary {
+    private static UsernameDictionary usernameDictionary = null;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>(); // read without locking
+    private volatile String[] usernames = new String[16]; // by ID, written back after every new ID
+    private int count = 0; // IDs handed out, guarded by this dictionary's lock
+
+    private UsernameDictionary() {
+    }
+
+    /**
+     * Returns the dictionary shared by the application, creating it if it does not exist.
+     *
+     * @return The shared dictionary.
+     */
+    public static synchronized UsernameDictionary getInstance() {
+        if (usernameDictionary == null) {
+            usernameDictionary = new UsernameDictionary();
+        }
+        return usernameDictionary;
+    }
+
+    /**
+     * Returns the ID of a username, giving it the next free ID if it has none yet.
+     *
+     * @param username The username.
+     * @return The ID of the username.
+     */
+    public int getId(String username) {
+        Integer id = ids.get(username);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(username);
+            if (id == null) {
+                id = count++;
+                String[] names = usernames;
+                if (id == names.length) {
+                    names = Arrays.copyOf(names, names.length * 2);
+                }
+                names[id] = username;
+                usernames = names; // Published before the ID, so a reader who has the ID can look it up
+                ids.put(username, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the ID of a username without giving it one.
+     *
+     * @param username The username.
+     * @return The ID of the username, or -1 if it has none.
+     */
+    public int findId(String username) {
+        return ids.getOrDefault(username, -1);
+    }
+
+    /**
+     * Returns the username with the given ID.
+     *
+     * @param id An ID handed out by this dictionary.
+     * @return The username.
+     */
+    public String getUsername(int id) {
+        return usernames[id];
+    }
+
+    /**
+     * Returns the IDs of several usernames, giving the next free IDs to those that have none yet.
+     * Empty usernames, left by an empty field of a data file, are skipped.
+     *
+     * @param usernames The usernames.
+     * @return The IDs of the usernames, in the same order.
+     */
+    public int[] getIds(List<String> usernames) {
+        int[] ids = new int[usernames.size()];
+        int count = 0;
+        for (String username : usernames) {
+            if (!username.isEmpty()) {
+                ids[count++] = getId(username);
+            }
+        }
+        return count == ids.length ? ids : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Returns the usernames with the given IDs.
+     *
+     * @param ids IDs handed out by this dictionary.
+     * @param count The number of IDs to look up, from the start of the array.
+     * @return The usernames, in the same order.
+     */
+    public ArrayList<String> getUsernames(int[] ids, int count) {
+        String[] usernames = this.usernames;
+        ArrayList<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(usernames[ids[i]]);
+        }
+        return names;
+    }
+}
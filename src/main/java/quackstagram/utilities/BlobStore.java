@@ -0,0 +1,188 @@
+package quackstagram.utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code BlobStore} class stores every distinct uploaded image only once, so uploading the same image
+ * again costs no disk space.
+ * <p>
+ * Images are kept in {@code img/blobs}, named after the SHA-256 hash of their PNG bytes. The file of each
+ * picture in {@code img/uploaded} is a hard link to its blob, or a copy where hard links are not supported,
+ * so pictures are read from their usual path. {@code data/blobs.txt} holds one {@code "<pictureID>; <hash>"}
+ * line per picture, and a blob is deleted once no picture refers to it anymore. Pictures uploaded before the
+ * blob store existed have no line and are only stored in {@code img/uploaded}.
+ * </p>
+ * <p>
+ * The user and moderator applications both store and release blobs, so every change holds a lock on a
+ * {@code .lock} file next to the references and reads them again first: a reference the other application
+ * added is never dropped, and a blob it still uses is never deleted.
+ * </p>
+ */
+class BlobStore {
+    private static final Path BLOBS_DIR = Paths.get("img", "blobs");
+    private static final Path REFERENCES_FILE = Paths.get("data", "blobs.txt");
+    private static final Path LOCK_FILE = Paths.get("data", "blobs.txt.lock");
+
+    private static Map<String, String> hashByPicture; // Read again under the lock before every change
+    private static Map<String, Integer> referenceCounts;
+
+    /**
+     * Moves a stored PNG file into the blob store and puts a link to its blob at the picture's path.
+     * If an identical image is already stored, the file is dropped and the existing blob is linked instead.
+     *
+     * @param pictureId the ID of the picture the image is uploaded for
+     * @param pngFile the PNG file, which is moved or deleted
+     * @param picturePath the path of the picture's file in {@code img/uploaded}
+     * @throws IOException if an I/O error occurs
+     */
+    static synchronized void store(String pictureId, Path pngFile, Path picturePath) throws IOException {
+        String hash = hashOf(pngFile);
+        locked(() -> {
+            load();
+            link(pictureId, hash, pngFile, picturePath);
+        });
+    }
+
+    private static void link(String pictureId, String hash, Path pngFile, Path picturePath) throws IOException {
+        Path blob = blobOf(hash);
+        if (Files.exists(blob)) {
+            Files.delete(pngFile); // Duplicate upload
+        } else {
+            Files.move(pngFile, blob, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Files.deleteIfExists(picturePath);
+        try {
+            Files.createLink(picturePath, blob);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(blob, picturePath); // No hard links on this file system
+        }
+
+        hashByPicture.put(pictureId, hash);
+        referenceCounts.merge(hash, 1, Integer::sum);
+        try (BufferedWriter writer = Files.newBufferedWriter(REFERENCES_FILE, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writer.write(pictureId + "; " + hash);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Drops the reference of a picture to its blob, deleting the blob if it was the last one.
+     * Does nothing for pictures that are not in the blob store.
+     *
+     * @param pictureId the ID of the deleted picture
+     */
+    static synchronized void release(String pictureId) {
+        try {
+            locked(() -> {
+                load();
+                String hash = hashByPicture.remove(pictureId);
+                if (hash == null) {
+                    return;
+                }
+                if (referenceCounts.merge(hash, -1, Integer::sum) == 0) {
+                    referenceCounts.remove(hash);
+                    Files.deleteIfExists(blobOf(hash));
+                }
+                save();
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates a temporary file in the blob directory, so it can be moved into the store without copying.
+     *
+     * @return the path of the new empty file
+     * @throws IOException if an I/O error occurs
+     */
+    static Path createTempFile() throws IOException {
+        Files.createDirectories(BLOBS_DIR);
+        return Files.createTempFile(BLOBS_DIR, "upload", ".tmp");
+    }
+
+    private static void load() {
+        hashByPicture = new HashMap<>();
+        referenceCounts = new HashMap<>();
+        if (!Files.exists(REFERENCES_FILE)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(REFERENCES_FILE)) {
+                String[] entry = line.split("; ");
+                if (entry.length == 2 && hashByPicture.put(entry[0], entry[1]) == null) {
+                    referenceCounts.merge(entry[1], 1, Integer::sum);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void save() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : hashByPicture.entrySet()) {
+            lines.add(entry.getKey() + "; " + entry.getValue());
+        }
+        Path tmpFile = REFERENCES_FILE.resolveSibling(REFERENCES_FILE.getFileName() + ".tmp");
+        Files.write(tmpFile, lines);
+        Files.move(tmpFile, REFERENCES_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Runs an action while holding the lock shared with the other application.
+     */
+    private static void locked(LockedAction action) throws IOException {
+        Files.createDirectories(LOCK_FILE.getParent());
+        try (FileChannel channel = FileChannel.open(LOCK_FILE, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                action.run();
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private static String hashOf(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform supports SHA-256
+        }
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Path blobOf(String hash) {
+        return BLOBS_DIR.resolve(hash + ".png");
+    }
+
+    private interface LockedAction {
+        void run() throws IOException;
+    }
+}
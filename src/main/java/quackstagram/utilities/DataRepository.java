@@ -0,0 +1,820 @@
+package quackstagram.utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import quackstagram.models.AbstractModel;
+import quackstagram.models.Notification;
+import quackstagram.models.Picture;
+import quackstagram.models.User;
+import quackstagram.models.UsernameDictionary;
+
+/**
+ * The {@code DataRepository} class keeps the users, pictures and notifications in memory and indexes
+ * them by the keys that {@link FileHandler} looks them up by (username, picture ID, picture owner and
+ * notification recipient).
+ * <p>
+ * Users are loaded once, up front. Pictures and notifications are loaded one owner or recipient at a time:
+ * a {@link SecondaryIndex} per data file holds the byte offsets of each owner's and recipient's lines, so
+ * a per-user query only reads and parses that user's rows. Lookups that need every row (the explore grid,
+ * a lookup by picture ID, compaction) load the remaining keys on demand. When the binary {@link Snapshot} of a
+ * data file is up to date, it is read instead of the text, and the index is not needed.
+ * </p>
+ * <p>
+ * Changes are stored as records appended to a {@link RecordLog} per data file, which is replayed at load
+ * time. A background compactor folds the logs back into the data files once they grow past
+ * {@link #COMPACTION_THRESHOLD} records, and once more when the application exits. Compaction writes the
+ * snapshot of every data file it rewrites, and snapshots that were missing or out of date at startup are
+ * written in the background.
+ * </p>
+ * <p>
+ * Likes are written behind: a liked picture is updated in memory at once, but its record is only logged by the
+ * next flush, which writes the records of every picture liked since the previous one in a single append, however
+ * many times each was liked. Likes are flushed every {@link #LIKE_FLUSH_INTERVAL_MILLIS} milliseconds, as soon as
+ * {@link #LIKE_FLUSH_THRESHOLD} are buffered, and when the application exits.
+ * </p>
+ * <p>
+ * Each recipient keeps at most their {@link #NOTIFICATIONS_PER_USER} latest notifications, and none older than
+ * {@link #NOTIFICATION_RETENTION_DAYS} if that is set, so an inbox read costs the same however many likes a user
+ * received. Older notifications are dropped from the notifications file by the next compaction, which moves
+ * them to the {@link NotificationArchive}.
+ * </p>
+ * <p>
+ * Who follows whom is indexed in both directions by a {@link SocialGraph}, built when the users are read and
+ * updated as users are saved. The stored followers count of every user is set from it.
+ * </p>
+ */
+class DataRepository {
+    private static final int COMPACTION_THRESHOLD = 200; // log records before a log is folded
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+    private static final int LIKE_FLUSH_THRESHOLD = 100; // buffered likes before they are flushed early
+    private static final long LIKE_FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int NOTIFICATIONS_PER_USER = Integer.getInteger("quackstagram.notificationsPerUser", 100);
+    // 0 keeps notifications regardless of their age
+    private static final long NOTIFICATION_RETENTION_DAYS = Long.getLong("quackstagram.notificationRetentionDays", 0);
+    private static DataRepository repository = null;
+    private final ArrayList<Snapshot.Format<?>> staleSnapshots = new ArrayList<>();
+
+    private final ArrayList<User> users;
+    private final HashMap<String, User> usersByName = new HashMap<>();
+    private final RecordLog usersLog = new RecordLog(FileHandler.USERS_LOG);
+    private SocialGraph socialGraph; // null until the users are read and the logs replayed
+
+    private final SecondaryIndex picturesIndex =
+            new SecondaryIndex(FileHandler.PICTURES_FILE, FileHandler.PICTURES_OWNER_INDEX, 1);
+    private final HashMap<String, Picture> picturesById = new HashMap<>();
+    private final HashMap<String, ArrayList<Picture>> picturesByOwner = new HashMap<>(); // loaded owners only
+    private final LinkedHashMap<String, Picture> loggedPictures = new LinkedHashMap<>(); // replayed, owner not loaded
+    private final HashSet<String> deletedPictureIds = new HashSet<>(); // deleted since the data file was written
+    private Snapshot<Picture> picturesSnapshot; // null if out of date, the index is used instead
+    private boolean allPicturesLoaded = false;
+    private final RecordLog picturesLog = new RecordLog(FileHandler.PICTURES_LOG);
+    private final LinkedHashMap<String, Picture> likedPictures = new LinkedHashMap<>(); // liked since the last flush
+    private int bufferedLikes = 0;
+    private boolean shuttingDown = false; // likes are logged at once from then on
+
+    private final SecondaryIndex notificationsIndex =
+            new SecondaryIndex(FileHandler.NOTIFICATIONS_FILE, FileHandler.NOTIFICATIONS_RECIPIENT_INDEX, 0);
+    private final HashMap<String, ArrayList<Notification>> notificationsByRecipient = new HashMap<>();
+    private final HashMap<String, ArrayList<Notification>> loggedNotifications = new HashMap<>();
+    private Snapshot<Notification> notificationsSnapshot;
+    // Sequence number of every loaded notification: the number of notifications the recipient had received
+    // or updated when it was last received or updated, so the newest one has the highest number
+    private final IdentityHashMap<Notification, Long> notificationSequences = new IdentityHashMap<>();
+    private long sequenceBase = 0; // highest sequence number handed out before the notifications were read again
+    private final ArrayList<Notification> droppedNotifications = new ArrayList<>(); // to archive at compaction
+    private final RecordLog notificationsLog = new RecordLog(FileHandler.NOTIFICATIONS_LOG);
+
+    // Position of every picture and notification in its data file, so the files can be written back in order.
+    // Rows read from a data file use their byte offset or their position in the snapshot, newer rows count down
+    // from zero so they sort first.
+    private final IdentityHashMap<Object, Long> rowOrder = new IdentityHashMap<>();
+    private long newestRowOrder = 0;
+
+    private DataRepository(ArrayList<User> users) {
+        this.users = users;
+        for (User user : users) {
+            usersByName.put(user.getUsername(), user);
+        }
+    }
+
+    /**
+     * Retrieves the single instance of the repository, reading the users, opening the snapshots or indexes
+     * and replaying the logs on first use.
+     *
+     * @return the singleton instance of DataRepository
+     */
+    static synchronized DataRepository getInstance() {
+        if (repository == null) {
+            Snapshot<User> usersSnapshot = FileHandler.readSnapshot(Snapshot.USERS);
+            repository = new DataRepository(usersSnapshot != null
+                    ? usersSnapshot.rows()
+                    : FileHandler.readFile(FileHandler.USERS_FILE, User::createInstance));
+            if (usersSnapshot == null) {
+                repository.staleSnapshots.add(Snapshot.USERS);
+            }
+
+            repository.picturesSnapshot = FileHandler.readSnapshot(Snapshot.PICTURES);
+            if (repository.picturesSnapshot == null) {
+                repository.picturesIndex.open();
+                repository.staleSnapshots.add(Snapshot.PICTURES);
+            }
+            repository.notificationsSnapshot = FileHandler.readSnapshot(Snapshot.NOTIFICATIONS);
+            if (repository.notificationsSnapshot == null) {
+                repository.notificationsIndex.open();
+                repository.staleSnapshots.add(Snapshot.NOTIFICATIONS);
+            }
+
+            repository.replayLogs();
+            repository.buildSocialGraph();
+            repository.startCompactor();
+        }
+        return repository;
+    }
+
+    private void replayLogs() {
+        usersLog.replay(this::replayUser);
+        picturesLog.replay(this::replayPicture);
+        notificationsLog.replay(this::replayNotification);
+    }
+
+    /**
+     * Builds the social graph from the follows of every user, and sets each user's followers count from it.
+     */
+    private void buildSocialGraph() {
+        socialGraph = new SocialGraph(users);
+        for (User user : users) {
+            user.setFollowersCount(socialGraph.getFollowersCount(user.getId()));
+        }
+    }
+
+    private void replayUser(String operation, String[] fields) {
+        putUser(User.createInstance(fields));
+    }
+
+    /**
+     * Applies a logged picture change. At load time no owner is loaded yet and the change is kept aside until
+     * its owner is; a change another process logged later is applied to the loaded pictures directly.
+     */
+    private void replayPicture(String operation, String[] fields) {
+        if (RecordLog.DELETE.equals(operation)) {
+            Picture removed = loggedPictures.remove(fields[0]);
+            rowOrder.remove(removed);
+            deletedPictureIds.add(fields[0]);
+            Picture loaded = picturesById.remove(fields[0]);
+            if (loaded != null) {
+                picturesByOwner.get(loaded.getOwner()).remove(loaded);
+                rowOrder.remove(loaded);
+                likedPictures.remove(fields[0]);
+            }
+        } else {
+            Picture picture = Picture.createInstance(fields);
+            if (allPicturesLoaded || picturesByOwner.containsKey(picture.getOwner())) {
+                putPicture(picture);
+            } else {
+                Picture previous = loggedPictures.put(picture.getPictureID(), picture);
+                rowOrder.put(picture, previous != null ? rowOrder.remove(previous) : --newestRowOrder);
+            }
+        }
+    }
+
+    /**
+     * Applies a logged notification. At load time the change is kept aside until its recipient is loaded;
+     * a rollup another process logged later replaces the loaded one of the same picture and window.
+     */
+    private void replayNotification(String operation, String[] fields) {
+        Notification notification = Notification.createInstance(fields);
+        ArrayList<Notification> received = notificationsByRecipient.get(notification.getUsername());
+        if (received != null) {
+            long sequence = getNotificationSequence(notification.getUsername()) + 1;
+            Notification previous = removeRollup(received, notification);
+            notificationSequences.remove(previous);
+            rowOrder.remove(previous);
+            received.add(0, notification);
+            notificationSequences.put(notification, sequence);
+            rowOrder.put(notification, --newestRowOrder);
+            dropExpiredNotifications(received);
+            return;
+        }
+
+        ArrayList<Notification> logged =
+                loggedNotifications.computeIfAbsent(notification.getUsername(), recipient -> new ArrayList<>());
+        for (int i = logged.size() - 1; i >= 0; i--) {
+            if (logged.get(i).isIdEqualTo(notification)) { // A rollup that was updated again
+                rowOrder.remove(logged.remove(i));
+                break;
+            }
+        }
+        logged.add(notification);
+        rowOrder.put(notification, --newestRowOrder);
+    }
+
+    /**
+     * Applies the changes that another process logged since the logs were read: the moderator application
+     * sees the users and pictures saved by the user application, and the other way round. If the other process
+     * folded a log into its data file in the meantime, the data file is read again and the log replayed, so this
+     * process can fold the log again too.
+     */
+    synchronized void refresh() {
+        flushLikes();
+        if (!usersLog.catchUp(this::replayUser)) {
+            reloadUsers();
+        }
+        if (!picturesLog.catchUp(this::replayPicture)) {
+            reloadPictures();
+        }
+        if (!notificationsLog.catchUp(this::replayNotification)) {
+            reloadNotifications();
+        }
+    }
+
+    private void reloadUsers() {
+        Snapshot<User> usersSnapshot = FileHandler.readSnapshot(Snapshot.USERS);
+        List<User> rows = usersSnapshot != null
+                ? usersSnapshot.rows()
+                : FileHandler.readFile(FileHandler.USERS_FILE, User::createInstance);
+        socialGraph = null;
+        users.clear();
+        usersByName.clear();
+        for (User user : rows) {
+            users.add(user);
+            usersByName.put(user.getUsername(), user);
+        }
+        usersLog.replay(this::replayUser);
+        buildSocialGraph();
+    }
+
+    private void reloadPictures() {
+        picturesById.values().forEach(rowOrder::remove);
+        loggedPictures.values().forEach(rowOrder::remove);
+        picturesById.clear();
+        picturesByOwner.clear();
+        loggedPictures.clear();
+        deletedPictureIds.clear();
+        likedPictures.clear(); // Flushed already
+        bufferedLikes = 0;
+        allPicturesLoaded = false;
+        picturesSnapshot = FileHandler.readSnapshot(Snapshot.PICTURES);
+        if (picturesSnapshot == null) {
+            picturesIndex.open();
+        }
+        picturesLog.replay(this::replayPicture);
+    }
+
+    /**
+     * Reads the notifications again. Their sequence numbers continue from the highest one handed out, so the
+     * views that show the notifications received since a sequence number show them all again.
+     */
+    private void reloadNotifications() {
+        for (long sequence : notificationSequences.values()) {
+            sequenceBase = Math.max(sequenceBase, sequence);
+        }
+        notificationsByRecipient.values().forEach(received -> received.forEach(rowOrder::remove));
+        loggedNotifications.values().forEach(logged -> logged.forEach(rowOrder::remove));
+        notificationsByRecipient.clear();
+        loggedNotifications.clear();
+        notificationSequences.clear();
+        droppedNotifications.clear(); // Dropped again when their recipient is loaded
+        notificationsSnapshot = FileHandler.readSnapshot(Snapshot.NOTIFICATIONS);
+        if (notificationsSnapshot == null) {
+            notificationsIndex.open();
+        }
+        notificationsLog.replay(this::replayNotification);
+    }
+
+    private void startCompactor() {
+        ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.execute(this::writeStaleSnapshots);
+        compactor.scheduleWithFixedDelay(this::flushLikes,
+                LIKE_FLUSH_INTERVAL_MILLIS, LIKE_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        compactor.scheduleWithFixedDelay(() -> compact(COMPACTION_THRESHOLD),
+                COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutDown, "data-compactor-shutdown"));
+    }
+
+    /**
+     * Flushes the buffered likes and compacts every log before the application exits. Likes saved afterwards,
+     * by event handlers that are still running, are logged at once.
+     */
+    private synchronized void shutDown() {
+        shuttingDown = true;
+        compact(1);
+    }
+
+    /**
+     * Writes the snapshots that were missing or out of date at startup from their data files. The data files
+     * are parsed without holding the lock, so the application is not blocked meanwhile.
+     */
+    private void writeStaleSnapshots() {
+        List<Snapshot.Format<?>> formats;
+        synchronized (this) {
+            formats = new ArrayList<>(staleSnapshots);
+        }
+        for (Snapshot.Format<?> format : formats) {
+            writeSnapshotFromDataFile(format);
+        }
+    }
+
+    private <T extends AbstractModel<T>> void writeSnapshotFromDataFile(Snapshot.Format<T> format) {
+        if (!Files.exists(format.dataFile)) {
+            return;
+        }
+        // Parsed line by line like the indexed reads, so an unreadable line is skipped instead of ending the file
+        List<T> rows = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(format.dataFile)) {
+                T row = line.isEmpty() ? null : parse(line, format.instanceCreator);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("File path: (" + format.dataFile + ") could not be read");
+            e.printStackTrace();
+            return;
+        }
+
+        synchronized (this) {
+            // A compaction that rewrote the data file in the meantime has written its snapshot already
+            if (staleSnapshots.remove(format)) {
+                FileHandler.writeSnapshot(format, rows);
+            }
+        }
+    }
+
+    /**
+     * Applies the changes other processes logged, then folds every log holding at least the given number of
+     * records into its data file,
+     * and rebuilds the index and the snapshot of every data file that was rewritten.
+     *
+     * @param threshold the minimum number of records a log must hold to be compacted
+     */
+    synchronized void compact(int threshold) {
+        refresh(); // So the changes of the other process are folded as well, rather than blocking the fold
+        if (usersLog.size() >= threshold) {
+            usersLog.fold(() -> {
+                FileHandler.writeFile(FileHandler.USERS_FILE, users);
+                FileHandler.writeSnapshot(Snapshot.USERS, users);
+                staleSnapshots.remove(Snapshot.USERS);
+                return true;
+            });
+        }
+        if (picturesLog.size() >= threshold) {
+            loadAllPictures();
+            picturesLog.fold(() -> {
+                List<Picture> rows = inFileOrder(picturesById.values());
+                FileHandler.writeFile(FileHandler.PICTURES_FILE, rows);
+                FileHandler.writeSnapshot(Snapshot.PICTURES, rows);
+                staleSnapshots.remove(Snapshot.PICTURES);
+                picturesSnapshot = null; // Every picture is loaded now, later lookups only go through the index
+                picturesIndex.rebuild();
+                renumber(rows);
+                deletedPictureIds.clear();
+                return true;
+            });
+        }
+        if (notificationsLog.size() >= threshold) {
+            loadAllNotifications();
+            notificationsLog.fold(() -> {
+                // Archived first, so the dropped notifications are only removed from the data file once they are
+                // safe
+                if (!NotificationArchive.write(droppedNotifications)) {
+                    return false;
+                }
+                droppedNotifications.clear();
+                List<Notification> rows = new ArrayList<>();
+                notificationsByRecipient.values().forEach(rows::addAll);
+                rows = inFileOrder(rows);
+                FileHandler.writeFile(FileHandler.NOTIFICATIONS_FILE, rows);
+                FileHandler.writeSnapshot(Snapshot.NOTIFICATIONS, rows);
+                staleSnapshots.remove(Snapshot.NOTIFICATIONS);
+                notificationsSnapshot = null;
+                notificationsIndex.rebuild();
+                renumber(rows);
+                return true;
+            });
+        }
+    }
+
+    synchronized User getUser(String username) {
+        return usersByName.get(username);
+    }
+
+    synchronized List<User> getUsers() {
+        return new ArrayList<>(users);
+    }
+
+    /**
+     * Makes one user follow another, updates the followers count of the followed user and logs both users.
+     * They are serialized under the lock, on the caller's thread, so no other thread sees them half changed.
+     *
+     * @return true if the follow was added, false if it existed already or a user would follow themselves
+     */
+    synchronized boolean follow(User follower, User followed) {
+        if (!socialGraph.follow(follower.getId(), followed.getId())) {
+            return false;
+        }
+        follower.addUserToFollow(followed);
+        followed.setFollowersCount(socialGraph.getFollowersCount(followed.getId()));
+        putUser(follower);
+        putUser(followed);
+        usersLog.appendAll(RecordLog.PUT, List.of(follower.serialize(), followed.serialize()));
+        return true;
+    }
+
+    synchronized boolean follows(User follower, User followed) {
+        return socialGraph.follows(follower.getId(), followed.getId());
+    }
+
+    /**
+     * Returns the users who follow the user with the given username.
+     */
+    synchronized List<User> getFollowers(String username) {
+        List<User> followers = new ArrayList<>();
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
+        for (int follower : socialGraph.getFollowers(dictionary.findId(username))) {
+            User user = usersByName.get(dictionary.getUsername(follower));
+            if (user != null) {
+                followers.add(user);
+            }
+        }
+        return followers;
+    }
+
+    synchronized Picture getPicture(String pictureId) {
+        if (!picturesById.containsKey(pictureId)) {
+            loadAllPictures();
+        }
+        return picturesById.get(pictureId);
+    }
+
+    /**
+     * Looks a picture up by its ID when its owner is known, which only loads that owner's pictures.
+     */
+    synchronized Picture getPicture(String owner, String pictureId) {
+        if (!picturesById.containsKey(pictureId)) {
+            ownerPictures(owner);
+        }
+        return picturesById.get(pictureId);
+    }
+
+    /**
+     * Returns the pictures of the given owner, or every picture if the owner is null.
+     */
+    synchronized ArrayList<Picture> getPictures(String owner) {
+        if (owner == null) {
+            loadAllPictures();
+            return new ArrayList<>(inFileOrder(picturesById.values()));
+        }
+        return new ArrayList<>(ownerPictures(owner));
+    }
+
+    synchronized ArrayList<Notification> getNotifications(String recipient) {
+        return new ArrayList<>(recipientNotifications(recipient));
+    }
+
+    /**
+     * Returns the sequence number of the newest notification of the given recipient, or the lowest one if there is
+     * none.
+     * A notification gets the next sequence number of its recipient whenever it is received or updated.
+     */
+    synchronized long getNotificationSequence(String recipient) {
+        ArrayList<Notification> received = recipientNotifications(recipient);
+        return received.isEmpty() ? sequenceBase : notificationSequences.get(received.get(0));
+    }
+
+    /**
+     * Returns the notifications of the given recipient received or updated after sequence number {@code from}
+     * and up to {@code to}, newest first, without going through the older ones.
+     */
+    synchronized ArrayList<Notification> getNotifications(String recipient, long from, long to) {
+        ArrayList<Notification> updated = new ArrayList<>();
+        for (Notification notification : recipientNotifications(recipient)) {
+            long sequence = notificationSequences.get(notification);
+            if (sequence <= from) {
+                break; // The list is in sequence order, newest first
+            }
+            if (sequence <= to) {
+                updated.add(notification);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Inserts a new user or replaces the stored user with the same username, and logs the change.
+     */
+    synchronized void saveUser(User user) {
+        putUser(user);
+        usersLog.append(RecordLog.PUT, user.serialize());
+    }
+
+    /**
+     * Inserts a new picture or replaces the stored picture with the same ID, and logs the change.
+     */
+    synchronized void savePicture(Picture picture) {
+        putPicture(picture);
+        likedPictures.remove(picture.getPictureID()); // This record holds its likes as well
+        picturesLog.append(RecordLog.PUT, picture.serialize());
+    }
+
+    /**
+     * Stores a picture that was liked, and buffers its record until the next flush of the likes.
+     * The buffer is flushed at once if it holds {@link #LIKE_FLUSH_THRESHOLD} likes.
+     */
+    synchronized void saveLike(Picture picture) {
+        if (shuttingDown) {
+            savePicture(picture);
+            return;
+        }
+        putPicture(picture);
+        likedPictures.put(picture.getPictureID(), picture);
+        if (++bufferedLikes >= LIKE_FLUSH_THRESHOLD) {
+            flushLikes();
+        }
+    }
+
+    /**
+     * Folds the likes of the pictures liked since the last flush and logs their records, in a single append.
+     */
+    synchronized void flushLikes() {
+        if (likedPictures.isEmpty()) {
+            return;
+        }
+        List<String[]> records = new ArrayList<>(likedPictures.size());
+        for (Picture picture : likedPictures.values()) {
+            picture.foldLikes();
+            records.add(picture.serialize());
+        }
+        picturesLog.appendAll(RecordLog.PUT, records);
+        likedPictures.clear();
+        bufferedLikes = 0;
+    }
+
+    /**
+     * Removes the picture with the given ID, if it exists, and logs the change.
+     */
+    synchronized void deletePicture(String pictureId) {
+        Picture removed = getPicture(pictureId);
+        if (removed == null) {
+            return;
+        }
+        picturesById.remove(pictureId);
+        likedPictures.remove(pictureId);
+        ownerPictures(removed.getOwner()).remove(removed);
+        rowOrder.remove(removed);
+        picturesLog.append(RecordLog.DELETE, pictureId);
+    }
+
+    /**
+     * Folds a notification into the recipient's rollup of the same picture and window if there is one, or stores
+     * it as a new rollup otherwise. The rollup is moved to the front and logged.
+     */
+    synchronized void saveNotification(Notification notification) {
+        ArrayList<Notification> received = recipientNotifications(notification.getUsername());
+        long sequence = getNotificationSequence(notification.getUsername()) + 1;
+        Notification rollup = removeRollup(received, notification);
+        if (rollup != null) {
+            rollup.fold(notification);
+            rowOrder.remove(rollup);
+        } else {
+            rollup = notification;
+        }
+
+        received.add(0, rollup);
+        notificationSequences.put(rollup, sequence);
+        rowOrder.put(rollup, --newestRowOrder);
+        notificationsLog.append(RecordLog.PUT, rollup.serialize());
+        dropExpiredNotifications(received);
+    }
+
+    /**
+     * Drops the notifications at the end of a recipient's newest first list that exceed the retention limits,
+     * keeping them for the archive.
+     */
+    private void dropExpiredNotifications(ArrayList<Notification> received) {
+        while (!received.isEmpty() && (received.size() > NOTIFICATIONS_PER_USER || NOTIFICATION_RETENTION_DAYS > 0
+                && received.get(received.size() - 1).isOlderThan(NOTIFICATION_RETENTION_DAYS))) {
+            Notification dropped = received.remove(received.size() - 1);
+            notificationSequences.remove(dropped);
+            rowOrder.remove(dropped);
+            droppedNotifications.add(dropped);
+        }
+    }
+
+    /**
+     * Removes the rollup with the same identity as the given notification from a newest first list,
+     * only looking through the notifications of its window.
+     *
+     * @return the removed rollup, or null if there is none
+     */
+    private static Notification removeRollup(List<Notification> received, Notification notification) {
+        for (int i = 0; i < received.size(); i++) {
+            Notification candidate = received.get(i);
+            if (candidate.isIdEqualTo(notification)) {
+                return received.remove(i);
+            }
+            if (candidate.isBeforeWindowOf(notification)) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private void putUser(User user) {
+        User previous = usersByName.put(user.getUsername(), user);
+        int index = previous == null ? -1 : users.indexOf(previous);
+        if (index >= 0) {
+            users.set(index, user);
+        } else {
+            users.add(0, user);
+        }
+        if (socialGraph != null) {
+            updateFollows(user);
+        }
+    }
+
+    /**
+     * Adds the follows of a saved user to the social graph, and updates the followers count of each user
+     * they started to follow. If a follow was dropped instead, which the graph cannot remove, it is built again.
+     */
+    private void updateFollows(User user) {
+        int[] following = user.getFollowingIds();
+        int[] sorted = following.clone();
+        Arrays.sort(sorted);
+        for (int followed : socialGraph.getFollowing(user.getId())) {
+            if (Arrays.binarySearch(sorted, followed) < 0) {
+                buildSocialGraph();
+                return;
+            }
+        }
+        UsernameDictionary dictionary = UsernameDictionary.getInstance();
+        for (int followed : following) {
+            if (socialGraph.follow(user.getId(), followed)) {
+                User followedUser = usersByName.get(dictionary.getUsername(followed));
+                if (followedUser != null) {
+                    followedUser.setFollowersCount(socialGraph.getFollowersCount(followed));
+                }
+            }
+        }
+    }
+
+    private void putPicture(Picture picture) {
+        ArrayList<Picture> owned = ownerPictures(picture.getOwner());
+        Picture previous = picturesById.put(picture.getPictureID(), picture);
+        int index = previous == null ? -1 : owned.indexOf(previous);
+        if (index >= 0) {
+            owned.set(index, picture);
+            rowOrder.put(picture, rowOrder.remove(previous));
+        } else {
+            owned.add(0, picture);
+            rowOrder.putIfAbsent(picture, --newestRowOrder);
+        }
+    }
+
+    /**
+     * Returns the live list of pictures of the given owner, reading the owner's rows through the index
+     * and applying the logged changes to them on first access.
+     */
+    private ArrayList<Picture> ownerPictures(String owner) {
+        ArrayList<Picture> owned = picturesByOwner.get(owner);
+        if (owned != null) {
+            return owned;
+        }
+
+        owned = new ArrayList<>();
+        picturesByOwner.put(owner, owned);
+        if (picturesSnapshot != null) {
+            for (int row : picturesSnapshot.rowsOf(owner)) {
+                addStoredPicture(owned, picturesSnapshot.row(row), row);
+            }
+        } else {
+            for (Map.Entry<Long, String> line : picturesIndex.readLines(owner).entrySet()) {
+                addStoredPicture(owned, parse(line.getValue(), Picture::createInstance), line.getKey());
+            }
+        }
+
+        int ownerId = UsernameDictionary.getInstance().findId(owner);
+        for (Picture logged : new ArrayList<>(loggedPictures.values())) {
+            if (logged.getOwnerId() == ownerId) {
+                loggedPictures.remove(logged.getPictureID());
+                putPicture(logged);
+            }
+        }
+        return owned;
+    }
+
+    private void addStoredPicture(ArrayList<Picture> owned, Picture picture, long order) {
+        if (picture == null || deletedPictureIds.contains(picture.getPictureID())) {
+            return;
+        }
+        owned.add(picture);
+        picturesById.put(picture.getPictureID(), picture);
+        rowOrder.put(picture, order);
+    }
+
+    private void loadAllPictures() {
+        if (allPicturesLoaded) {
+            return;
+        }
+        Set<String> owners = picturesSnapshot != null ? picturesSnapshot.keys() : picturesIndex.keys();
+        for (String owner : new ArrayList<>(owners)) {
+            ownerPictures(owner);
+        }
+        for (Picture logged : new ArrayList<>(loggedPictures.values())) {
+            ownerPictures(logged.getOwner());
+        }
+        allPicturesLoaded = true;
+    }
+
+    /**
+     * Returns the live list of notifications of the given recipient, reading the recipient's rows through
+     * the index and prepending the logged notifications on first access.
+     */
+    private ArrayList<Notification> recipientNotifications(String recipient) {
+        ArrayList<Notification> received = notificationsByRecipient.get(recipient);
+        if (received != null) {
+            return received;
+        }
+
+        received = new ArrayList<>();
+        notificationsByRecipient.put(recipient, received);
+        if (notificationsSnapshot != null) {
+            for (int row : notificationsSnapshot.rowsOf(recipient)) {
+                Notification notification = notificationsSnapshot.row(row);
+                received.add(notification);
+                rowOrder.put(notification, (long) row);
+            }
+        } else {
+            for (Map.Entry<Long, String> line : notificationsIndex.readLines(recipient).entrySet()) {
+                Notification notification = parse(line.getValue(), Notification::createInstance);
+                if (notification != null) {
+                    received.add(notification);
+                    rowOrder.put(notification, line.getKey());
+                }
+            }
+        }
+
+        for (Notification logged : loggedNotifications.getOrDefault(recipient, new ArrayList<>())) {
+            rowOrder.remove(removeRollup(received, logged)); // Updated since the data file was written
+            received.add(0, logged);
+        }
+        loggedNotifications.remove(recipient);
+        for (int i = 0; i < received.size(); i++) {
+            notificationSequences.put(received.get(i), sequenceBase + received.size() - i);
+        }
+        dropExpiredNotifications(received);
+        return received;
+    }
+
+    private void loadAllNotifications() {
+        Set<String> recipients =
+                notificationsSnapshot != null ? notificationsSnapshot.keys() : notificationsIndex.keys();
+        for (String recipient : new ArrayList<>(recipients)) {
+            recipientNotifications(recipient);
+        }
+        for (String recipient : new ArrayList<>(loggedNotifications.keySet())) {
+            recipientNotifications(recipient);
+        }
+    }
+
+    private <T> List<T> inFileOrder(Collection<T> rows) {
+        List<T> ordered = new ArrayList<>(rows);
+        ordered.sort(Comparator.comparing(rowOrder::get));
+        return ordered;
+    }
+
+    private <T> void renumber(List<T> rows) {
+        for (int i = 0; i < rows.size(); i++) {
+            rowOrder.put(rows.get(i), (long) i);
+        }
+    }
+
+    private static <T> T parse(String line, Function<String[], T> instanceCreator) {
+        try {
+            return instanceCreator.apply(line.split("; "));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
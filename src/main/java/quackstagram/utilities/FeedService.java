@@ -0,0 +1,149 @@
+package quackstagram.utilities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import quackstagram.models.Picture;
+import quackstagram.models.User;
+
+/**
+ * The {@code FeedService} class serves the home feed of a user one page at a time, newest picture first.
+ * <p>
+ * Pages are read from the user's materialized home timeline. The timeline only holds the newest
+ * {@link TimelineStore#TIMELINE_SIZE} pictures, so pages past its end are produced by a k-way merge of the
+ * date-sorted picture lists of the followed users, which only looks at as many pictures as the page needs.
+ * Each followed user's list is read and sorted once per pass through the feed, and the following pages
+ * binary search it for where the previous page ended.
+ * </p>
+ */
+public class FeedService {
+    public static final int PAGE_SIZE = 10; // pictures fetched per page
+
+    private final User user;
+    private List<Picture> timeline; // read once per pass through the feed
+    private boolean timelineTruncated; // the followed users have pictures older than the timeline's
+    private final HashMap<String, List<Picture>> sortedPictures = new HashMap<>(); // followed user's, this pass
+
+    /**
+     * Constructs a feed service for the home feed of the given user.
+     *
+     * @param user the user whose home feed is served
+     */
+    public FeedService(User user) {
+        this.user = user;
+    }
+
+    /**
+     * Returns the next page of the feed.
+     *
+     * @param after the last picture of the previous page, or {@code null} for the first page
+     * @param limit the maximum number of pictures to return
+     * @return up to {@code limit} pictures following {@code after}, newest first;
+     *         an empty list once the feed is exhausted
+     */
+    public List<Picture> getPage(Picture after, int limit) {
+        if (after == null || timeline == null) {
+            TimelineStore.Timeline read = TimelineStore.read(user);
+            timeline = read.getPictures();
+            timelineTruncated = read.isTruncated();
+            sortedPictures.clear();
+        }
+
+        int start = 0;
+        if (after != null) {
+            start = indexOf(timeline, after) + 1;
+        }
+
+        List<Picture> page = new ArrayList<>();
+        if (start > 0 || after == null) {
+            page.addAll(timeline.subList(Math.min(start, timeline.size()), Math.min(start + limit, timeline.size())));
+            if (page.size() == limit || !timelineTruncated) {
+                // Either the page is full or the timeline holds the complete feed
+                return page;
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            } else if (!timeline.isEmpty()) {
+                after = timeline.get(timeline.size() - 1);
+            }
+        }
+
+        page.addAll(mergeFollowedUsers(after, limit - page.size()));
+        return page;
+    }
+
+    /**
+     * Merges the picture lists of the followed users, each sorted newest first, and returns the
+     * first {@code limit} pictures that come after the cursor.
+     */
+    private List<Picture> mergeFollowedUsers(Picture after, int limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>();
+        for (String followedUser : user.getFollowingUsers()) {
+            List<Picture> pictures = sortedPictures.computeIfAbsent(followedUser, username -> {
+                List<Picture> owned = FileHandler.getUserPictures(username);
+                owned.sort(Picture.NEWEST_FIRST);
+                return owned;
+            });
+            int position = after == null ? 0 : firstAfter(pictures, after);
+            if (position < pictures.size()) {
+                heads.add(new Cursor(pictures, position));
+            }
+        }
+
+        List<Picture> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Cursor head = heads.poll();
+            merged.add(head.current());
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private static int indexOf(List<Picture> pictures, Picture picture) {
+        for (int i = 0; i < pictures.size(); i++) {
+            if (pictures.get(i).isIdEqualTo(picture)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Binary searches a sorted list for the position of the first picture that comes after the cursor.
+     */
+    private static int firstAfter(List<Picture> sorted, Picture after) {
+        int index = Collections.binarySearch(sorted, after, Picture.NEWEST_FIRST);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * A position in one followed user's sorted picture list, ordered by the picture it points at.
+     */
+    private static class Cursor implements Comparable<Cursor> {
+        private final List<Picture> pictures;
+        private int position;
+
+        Cursor(List<Picture> pictures, int position) {
+            this.pictures = pictures;
+            this.position = position;
+        }
+
+        Picture current() {
+            return pictures.get(position);
+        }
+
+        boolean advance() {
+            return ++position < pictures.size();
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Picture.NEWEST_FIRST.compare(current(), other.current());
+        }
+    }
+}
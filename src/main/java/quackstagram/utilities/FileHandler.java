@@ -5,9 +5,13 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -24,11 +28,30 @@ import quackstagram.models.User;
  * The FileHandler class provides static utility methods to read and write user, picture,
  * and notification data from and to persistent storage. It also handles image file operations
  * for user profile pictures and uploaded pictures.
+ * <p>
+ * Reads are served from the in-memory {@link DataRepository}, which loads each row only once,
+ * reading pictures and notifications per owner and recipient through a {@link SecondaryIndex}.
+ * Writes update the repository and are appended to a {@link RecordLog} next to the data file,
+ * which is folded back into the data file in the background.
+ * </p>
+ * <p>
+ * Each data file also has a binary {@link Snapshot}, which is loaded instead of the text whenever it is up to date.
+ * The text files remain the format to import and export data in: they are rewritten by every compaction, and
+ * the snapshot of a text file that was changed by hand is written again on the next start.
+ * </p>
  */
 public class FileHandler {
-    private static final Path NOTIFICATIONS_FILE = Paths.get("data", "notifications.txt");
-    private static final Path PICTURES_FILE = Paths.get("data", "pictures.txt");
-    private static final Path USERS_FILE = Paths.get("data", "users.txt");
+    static final Path NOTIFICATIONS_FILE = Paths.get("data", "notifications.txt");
+    static final Path PICTURES_FILE = Paths.get("data", "pictures.txt");
+    static final Path USERS_FILE = Paths.get("data", "users.txt");
+    static final Path NOTIFICATIONS_LOG = Paths.get("data", "notifications.log");
+    static final Path PICTURES_LOG = Paths.get("data", "pictures.log");
+    static final Path USERS_LOG = Paths.get("data", "users.log");
+    static final Path NOTIFICATIONS_RECIPIENT_INDEX = Paths.get("data", "notifications.recipient.idx");
+    static final Path PICTURES_OWNER_INDEX = Paths.get("data", "pictures.owner.idx");
+    static final Path NOTIFICATIONS_SNAPSHOT = Paths.get("data", "notifications.bin");
+    static final Path PICTURES_SNAPSHOT = Paths.get("data", "pictures.bin");
+    static final Path USERS_SNAPSHOT = Paths.get("data", "users.bin");
     private static final Path PROFILE_PICTURE_DIR = Paths.get("img", "profile");
     private static final Path UPLOADS_PICTURE_DIR = Paths.get("img", "uploaded");
 
@@ -40,15 +63,61 @@ public class FileHandler {
      * @throws Exception if no user with the given username exists
      */
     public static User getUser(String username) throws Exception {
-        ArrayList<User> users = readFile(USERS_FILE, User::createInstance);
-
-        for (User user : users) {
-            if (username.equals(user.getUsername())) {
-                return user;
-            }
+        User user = DataRepository.getInstance().getUser(username);
+        if (user == null) {
+            throw new Exception("No such user " + username + " exist");
         }
 
-        throw new Exception("No such user " + username + " exist");
+        return user;
+    }
+
+    /**
+     * Retrieves every user, in the order they are stored in the users file.
+     *
+     * @return a List of all User objects
+     */
+    public static List<User> getAllUsers() {
+        return DataRepository.getInstance().getUsers();
+    }
+
+    /**
+     * Reads the users and pictures that another process, such as the moderator application, saved since
+     * they were loaded.
+     */
+    public static void refresh() {
+        DataRepository.getInstance().refresh();
+    }
+
+    /**
+     * Makes one user follow another, updates the followers count of the followed user and saves both users.
+     *
+     * @param follower the user who follows
+     * @param followed the user to follow
+     * @return true if the follow was added, false if the user already followed them or tried to follow themselves
+     */
+    public static boolean follow(User follower, User followed) {
+        return DataRepository.getInstance().follow(follower, followed);
+    }
+
+    /**
+     * Checks whether one user follows another.
+     *
+     * @param follower the user who may follow
+     * @param followed the user who may be followed
+     * @return true if the first user follows the second
+     */
+    public static boolean isFollowing(User follower, User followed) {
+        return DataRepository.getInstance().follows(follower, followed);
+    }
+
+    /**
+     * Retrieves the users who follow a user.
+     *
+     * @param username the username of the followed user
+     * @return a List of the users who follow them
+     */
+    public static List<User> getFollowers(String username) {
+        return DataRepository.getInstance().getFollowers(username);
     }
 
     /**
@@ -57,8 +126,9 @@ public class FileHandler {
      * @param user the User object to be saved
      */
     public static void saveUser(User user) {
-        saveToFile(USERS_FILE, user, User::createInstance);
+        DataRepository.getInstance().saveUser(user);
     }
+
     /**
      * Retrieves a Picture object by its ID.
      *
@@ -67,15 +137,12 @@ public class FileHandler {
      * @throws Exception if no picture with the given ID exists
      */
     public static Picture getPictureById(String pictureId) throws Exception {
-        ArrayList<Picture> pictures = readFile(PICTURES_FILE, Picture::createInstance);
-
-        for (Picture picture : pictures) {
-            if (pictureId.equals(picture.getPictureID())) {
-                return picture;
-            }
+        Picture picture = DataRepository.getInstance().getPicture(pictureId);
+        if (picture == null) {
+            throw new Exception("No such picture " + pictureId + " exist");
         }
 
-        throw new Exception("No such picture " + pictureId + " exist");
+        return picture;
     }
 
     /**
@@ -87,16 +154,7 @@ public class FileHandler {
      * @return an ArrayList of Picture objects
      */
     public static ArrayList<Picture> getUserPictures(String username) {
-        ArrayList<Picture> allPictures = readFile(PICTURES_FILE, Picture::createInstance);
-        ArrayList<Picture> userPictures = new ArrayList<Picture>();
-
-        for (Picture picture : allPictures) {
-            if (username == null || username.equals(picture.getOwner())) {
-                userPictures.add(picture);
-            }
-        }
-
-        return userPictures;
+        return DataRepository.getInstance().getPictures(username);
     }
 
     /**
@@ -105,33 +163,113 @@ public class FileHandler {
      * @param picture the Picture object to be saved
      */
     public static void savePicture(Picture picture) {
-        saveToFile(PICTURES_FILE, picture, Picture::createInstance);
+        DataRepository.getInstance().savePicture(picture);
+    }
+
+    /**
+     * Saves a Picture object whose like count changed. The change is visible at once, but written to the
+     * pictures file in a batch with the other likes of the next second.
+     *
+     * @param picture the Picture object that was liked
+     */
+    public static void saveLike(Picture picture) {
+        DataRepository.getInstance().saveLike(picture);
+    }
+
+    /**
+     * Retrieves the home timeline of a user: the pictures of the users they follow, newest first.
+     *
+     * @param user the user whose home timeline to retrieve
+     * @return an ArrayList of at most {@link TimelineStore#TIMELINE_SIZE} Picture objects
+     */
+    public static ArrayList<Picture> getHomeTimeline(User user) {
+        return TimelineStore.read(user).getPictures();
+    }
+
+    /**
+     * Pushes a newly uploaded picture onto the home timelines of the followers of its owner.
+     *
+     * @param picture the Picture object that was uploaded
+     */
+    public static void publishToFollowers(Picture picture) {
+        TimelineStore.fanOut(picture);
+    }
+
+    /**
+     * Marks the home timeline of a user as out of date, for example after they followed someone,
+     * so that it is rebuilt the next time it is read.
+     *
+     * @param username the username of the user whose timeline changed
+     */
+    public static void invalidateHomeTimeline(String username) {
+        TimelineStore.invalidate(username);
     }
 
     /**
-     * Uploads an image file for a picture.
+     * Uploads an image file for a picture, along with its {@link Thumbnail} derivatives.
+     * PNG files are copied as they are, other formats are converted to PNG. The image is kept in the
+     * {@link BlobStore}, so an image that was uploaded before is not stored again. The thumbnails are
+     * best-effort: one that cannot be written now is derived from the upload when it is first shown.
      *
      * @param file the image file to be uploaded
      * @param picture the Picture object associated with the file
      * @throws IOException if an I/O error occurs
      */
     public static void uploadImage(File file, Picture picture) throws IOException {
-        BufferedImage image = ImageIO.read(file);
-        File outputFile = UPLOADS_PICTURE_DIR.resolve(picture.getPictureID() + ".png").toFile();
-        ImageIO.write(image, "png", outputFile);
+        Path pngFile = BlobStore.createTempFile();
+        try {
+            storeAsPng(file, pngFile);
+            BlobStore.store(picture.getPictureID(), pngFile, UPLOADS_PICTURE_DIR.resolve(picture.getPictureID() + ".png"));
+        } finally {
+            Files.deleteIfExists(pngFile); // Only left over if the image could not be stored
+        }
+        ThumbnailStore.createAll(picture);
+    }
+
+    /**
+     * Returns the path of a fixed-size derivative of an uploaded picture, deriving it from the upload
+     * first if it does not exist yet. Deriving a thumbnail reads the full-size upload, so this should not
+     * be called on the Event Dispatch Thread.
+     *
+     * @param picture the uploaded picture
+     * @param thumbnail the thumbnail size
+     * @return the path of the thumbnail file, or of the full-size upload if no thumbnail could be derived
+     */
+    public static String getThumbnailPath(Picture picture, Thumbnail thumbnail) {
+        if (ThumbnailStore.createIfMissing(picture, thumbnail)) {
+            return ThumbnailStore.pathOf(picture.getPictureID(), thumbnail).toString();
+        }
+        return picture.getPath();
     }
 
     /**
-     * Uploads a profile picture for a user.
+     * Uploads a profile picture for a user. PNG files are copied as they are, other formats are converted to PNG.
      *
      * @param file the image file to be used as a profile picture
      * @param username the username of the user whose profile picture is to be uploaded
      * @throws IOException if an I/O error occurs
      */
     public static void uploadProfilePicture(File file, String username) throws IOException {
+        storeAsPng(file, PROFILE_PICTURE_DIR.resolve(username + ".png"));
+    }
+
+    /**
+     * Stores an image file as a PNG file. PNG files are copied as they are once their header is checked,
+     * only other formats are decoded and encoded as PNG.
+     *
+     * @param file the image file to store
+     * @param outputFile the path of the stored PNG file
+     * @throws IOException if the file is not a readable image or an I/O error occurs
+     */
+    private static void storeAsPng(File file, Path outputFile) throws IOException {
+        if (ImageDecoder.isPng(file.toPath())) {
+            Files.copy(file.toPath(), outputFile, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+
+        ImageDecoder.readSize(file.getPath()); // Rejects unsupported and empty images before decoding them
         BufferedImage image = ImageIO.read(file);
-        File outputFile = PROFILE_PICTURE_DIR.resolve(username + ".png").toFile();
-        ImageIO.write(image, "png", outputFile);
+        ImageIO.write(image, "png", outputFile.toFile());
     }
 
     /**
@@ -141,17 +279,33 @@ public class FileHandler {
      * @return an ArrayList of Notification objects
      */
     public static ArrayList<Notification> getNotifications(String username) {
-        ArrayList<Notification> allNotifications = readFile(NOTIFICATIONS_FILE, Notification::createInstance);
-        ArrayList<Notification> userNotifications = new ArrayList<Notification>();
+        // notifications are indexed by their zero element, the user who received the like
+        return DataRepository.getInstance().getNotifications(username);
+    }
 
-        for (Notification notification : allNotifications) {
-            // if username == zero element in the notifications.txt, this user received like
-            if (username.equals(notification.getUsername())) {
-                userNotifications.add(notification);
-            }
-        }
+    /**
+     * Returns the sequence number of the newest notification of a user. Notifications are numbered from 1
+     * in the order they are received, so a view can remember the last number it showed and ask only for
+     * the notifications after it with {@link #getNotifications(String, long, long)}.
+     *
+     * @param username the username of the user who received the notifications
+     * @return the sequence number of the newest notification, or a number no later notification is below if
+     *         the user has none
+     */
+    public static long getNotificationSequence(String username) {
+        return DataRepository.getInstance().getNotificationSequence(username);
+    }
 
-        return userNotifications;
+    /**
+     * Retrieves the notifications of a user with a sequence number after {@code from} and up to {@code to}.
+     *
+     * @param username the username of the user whose notifications are to be retrieved
+     * @param from the sequence number of the last notification already seen, 0 for none
+     * @param to the sequence number of the newest notification to retrieve
+     * @return an ArrayList of Notification objects, newest first
+     */
+    public static ArrayList<Notification> getNotifications(String username, long from, long to) {
+        return DataRepository.getInstance().getNotifications(username, from, to);
     }
 
     /**
@@ -160,7 +314,7 @@ public class FileHandler {
      * @param notification the Notification object to be saved
      */
     public static void saveNotification(Notification notification) {
-        saveToFile(NOTIFICATIONS_FILE, notification, Notification::createInstance);
+        DataRepository.getInstance().saveNotification(notification);
     }
 
     /**
@@ -171,7 +325,7 @@ public class FileHandler {
      * @param instanceCreator a function that creates instances from string arrays
      * @return an ArrayList of type T created from the file data
      */
-    private static <T> ArrayList<T> readFile(Path filePath, Function<String[], T> instanceCreator) {
+    static <T> ArrayList<T> readFile(Path filePath, Function<String[], T> instanceCreator) {
         ArrayList<T> result = new ArrayList<>();
 
         try (BufferedReader reader = Files.newBufferedReader(filePath)) {
@@ -197,91 +351,88 @@ public class FileHandler {
     }
 
     /**
-     * Saves a single object to the given file path, either by updating an existing line
-     * or by appending a new line to the file.
-     *
-     * @param filePath the path of the file to save to
-     * @param object the object to save
-     * @param instanceCreator a function that creates instances from string arrays
+     * Writes the given rows to the given file path, one serialized object per line,
+     * replacing the previous content of the file. The rows are written to a temporary file first
+     * which is then moved over the data file, so a crash never leaves a half-written data file.
      *
-     * If update == true and object already exists in a file, update its line
-     * If update == false, ALWAYS create a new line
-     * Existing object is detected by comparing the zero element in a file
+     * @param filePath the path of the file to write to
+     * @param rows the objects to write, in file order
      */
-
-    private static <T extends AbstractModel<T>> void saveToFile(Path filePath, T object,
-            Function<String[], T> instanceCreator) {
-        ArrayList<T> existingData = readFile(filePath, instanceCreator);
-
-        if (object.isUpdatable()) {
-            // For example, if "mike" exists in the file, rewrite "mike's" line to update
-            // its data (e.g. followers, likes, etc)
-            boolean foundInFile = false;
-            for (int i = 0; i < existingData.size(); i++) {
-                T line = existingData.get(i);
-                if (object.isIdEqualTo(line)) {
-                    foundInFile = true;
-                    existingData.set(i, object);
-                    continue;
-                }
-            }
-
-            if (!foundInFile) {
-                existingData.add(0, object);
+    static <T extends AbstractModel<T>> void writeFile(Path filePath, List<T> rows) {
+        Path temporaryFile = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile)) {
+            for (T row : rows) {
+                writer.write(String.join("; ", row.serialize()));
+                writer.newLine();
             }
-        } else {
-            existingData.add(0, object);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
         }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            for (T line : existingData) {
-                String lineAsString = String.join("; ", line.serialize());
-                writer.write(lineAsString);
-                writer.newLine();
-            }
-        } catch (Exception e) {
+        try {
+            Files.move(temporaryFile, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     /**
-     * Deletes a user's profile picture from the profile pictures directory.
+     * Reads the snapshot of a data file through a memory-mapped file channel.
      *
-     * @param username the username of the user whose profile picture should be deleted
+     * @param format the format of the snapshot to read
+     * @return the snapshot, or null if it is missing, unreadable or was written from an older data file
      */
-    public static void deleteUserBio(String username) {
-        // Read all lines from the USERS_FILE
-        List<String> lines = new ArrayList<>();
-        try {
-            lines = Files.readAllLines(USERS_FILE);
-        } catch (IOException e) {
-            e.printStackTrace();
+    static <T extends AbstractModel<T>> Snapshot<T> readSnapshot(Snapshot.Format<T> format) {
+        if (!Files.exists(format.snapshotFile) || !Files.exists(format.dataFile)) {
+            return null;
         }
 
-        // Update the bio for the matching username
-        List<String> updatedLines = new ArrayList<>();
-        for (String line : lines) {
-            String[] parts = line.split("; ");
-            if (parts[0].equals(username)) {
-                parts[2] = ""; // Clear the bio
-                String updatedLine = String.join("; ", parts);
-                updatedLines.add(updatedLine);
-            } else {
-                updatedLines.add(line);
-            }
+        try (FileChannel channel = FileChannel.open(format.snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Snapshot.decode(format, buffer, Files.size(format.dataFile),
+                    Files.getLastModifiedTime(format.dataFile).toMillis());
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Snapshot path: (" + format.snapshotFile + ") is unreadable, ignoring it");
+            return null;
         }
+    }
 
-        // Write the updated lines back to the USERS_FILE
-        try (BufferedWriter writer = Files.newBufferedWriter(USERS_FILE)) {
-            for (String updatedLine : updatedLines) {
-                writer.write(updatedLine);
-                writer.newLine();
-            }
-        } catch (IOException e) {
+    /**
+     * Writes the snapshot of a data file, which must hold exactly the given rows.
+     * Like {@link #writeFile}, the snapshot is written to a temporary file first.
+     *
+     * @param format the format of the snapshot to write
+     * @param rows the rows of the data file, in file order
+     */
+    static <T extends AbstractModel<T>> void writeSnapshot(Snapshot.Format<T> format, List<T> rows) {
+        Path temporaryFile = format.snapshotFile.resolveSibling(format.snapshotFile.getFileName() + ".tmp");
+        try {
+            byte[] snapshot = Snapshot.encode(format, rows, Files.size(format.dataFile),
+                    Files.getLastModifiedTime(format.dataFile).toMillis());
+            Files.write(temporaryFile, snapshot);
+            Files.move(temporaryFile, format.snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
             e.printStackTrace();
         }
+    }
+
+    /**
+     * Clears a user's bio and saves the user.
+     *
+     * @param username the username of the user whose bio should be cleared
+     */
+    public static void deleteUserBio(String username) {
+        User user = DataRepository.getInstance().getUser(username);
+        if (user == null) {
+            return;
+        }
+
+        user.setBio(""); // Clear the bio
+        saveUser(user);
 
-        System.out.println("Bio updated to: " + updatedLines);
+        System.out.println("Bio cleared for: " + username);
     }
 
 
@@ -299,15 +450,14 @@ public class FileHandler {
 
     /**
      * Deletes an uploaded picture by removing the picture record from the data file and
-     * the file from the uploaded directory.
+     * the file from the uploaded directory. The stored image itself is only deleted once
+     * no other picture refers to it.
      *
      * @param pictureId the ID of the picture to be deleted
      */
     public static void deleteUserUploadedPicture(String pictureId) {
         // Remove the picture record from the data file
-        ArrayList<Picture> pictures = readFile(PICTURES_FILE, Picture::createInstance);
-        pictures.removeIf(picture -> picture.getPictureID().equals(pictureId));
-        saveAllPictures(pictures);
+        DataRepository.getInstance().deletePicture(pictureId);
 
         // Delete the picture file from the uploaded directory
         Path picturePath = UPLOADS_PICTURE_DIR.resolve(pictureId + ".png");
@@ -317,44 +467,7 @@ public class FileHandler {
             // Handle the exception, such as logging the error
             e.printStackTrace();
         }
+        BlobStore.release(pictureId);
+        ThumbnailStore.deleteAll(pictureId);
     }
-
-    /**
-     * Saves all user data back to the users.txt file.
-     *
-     * @param users an ArrayList of User objects to be saved
-     */
-    private static void saveAllUsers(ArrayList<User> users) {
-        try (BufferedWriter writer = Files.newBufferedWriter(USERS_FILE)) {
-            for (User user : users) {
-                String line = String.join("; ", user.serialize());
-                writer.write(line);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Saves all picture data back to the pictures.txt file.
-     *
-     * @param pictures an ArrayList of Picture objects to be saved
-     */
-    private static void saveAllPictures(ArrayList<Picture> pictures) {
-        try (BufferedWriter writer = Files.newBufferedWriter(PICTURES_FILE)) {
-            for (Picture picture : pictures) {
-                String line = String.join("; ", picture.serialize());
-                writer.write(line);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            // Handle the exception here
-            e.printStackTrace();
-        }
-    }
-
-
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package quackstagram.utilities;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.function.BiFunction;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * The ImageDecoder class provides static utility methods to decode only the part of an image file that is shown.
+ * <p>
+ * Instead of decoding every pixel of a large upload and throwing most of them away, the reader is told through an
+ * {@link ImageReadParam} which region to keep, or to keep only every n-th pixel, so the other pixels are never
+ * stored and decoding stops after the last row that is needed. Format and size checks only read the file header.
+ * </p>
+ */
+public class ImageDecoder {
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int IHDR = 0x49484452; // "IHDR", the type of the header chunk
+
+    /**
+     * Decodes the top-left corner of an image file.
+     *
+     * @param path the path of the image file
+     * @param width the maximum width of the corner
+     * @param height the maximum height of the corner
+     * @return the corner, smaller than the given size if the image is
+     * @throws IOException if the file could not be read or is not in a supported format
+     */
+    public static BufferedImage readCorner(String path, int width, int height) throws IOException {
+        return read(path, (reader, size) -> {
+            int rows = Math.min(size.height, height);
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, 0, Math.min(size.width, width), rows));
+            // Readers such as the PNG one keep decoding the rows below the region, so the read is stopped
+            // as soon as the last row of the region has been stored
+            reader.addIIOReadUpdateListener(new StopAfterRows(rows));
+            return param;
+        });
+    }
+
+    /**
+     * Decodes an image file at a reduced resolution that is still at least twice the given size in both
+     * directions, or at full resolution if the image is not that large. The result is meant to be scaled
+     * down to the given size afterwards, see {@link ImageScaler#read}.
+     *
+     * @param path the path of the image file
+     * @param width the width the image will be scaled to
+     * @param height the height the image will be scaled to
+     * @return the decoded image
+     * @throws IOException if the file could not be read or is not in a supported format
+     */
+    public static BufferedImage readSubsampled(String path, int width, int height) throws IOException {
+        return read(path, (reader, size) -> {
+            // Kept at twice the target size, so the scaler still averages pixels instead of skipping them
+            int factor = Math.max(1, Math.min(size.width / (2 * width), size.height / (2 * height)));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(factor, factor, 0, 0);
+            return param;
+        });
+    }
+
+    /**
+     * Checks whether a file is a PNG image, from its signature and header alone.
+     *
+     * @param file the file to check
+     * @return {@code true} if the file starts with the PNG signature followed by a valid header chunk
+     * @throws IOException if the file could not be read, or if it has the PNG signature but a broken header
+     */
+    public static boolean isPng(Path file) throws IOException {
+        byte[] start = new byte[PNG_SIGNATURE.length + 16]; // Signature, then length, type, width and height of IHDR
+        int read;
+        try (InputStream input = Files.newInputStream(file)) {
+            read = input.readNBytes(start, 0, start.length);
+        }
+        if (read < PNG_SIGNATURE.length
+                || !Arrays.equals(start, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length)) {
+            return false;
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(start, PNG_SIGNATURE.length, start.length - PNG_SIGNATURE.length);
+        if (read < start.length || header.getInt() != 13 || header.getInt() != IHDR
+                || header.getInt() <= 0 || header.getInt() <= 0) {
+            throw new IIOException("Broken PNG header " + file);
+        }
+        return true;
+    }
+
+    /**
+     * Reads the size of an image from its header, without decoding any pixel.
+     *
+     * @param path the path of the image file
+     * @return the width and height of the image
+     * @throws IOException if the file could not be read, is not in a supported format or has no pixels
+     */
+    public static Dimension readSize(String path) throws IOException {
+        Dimension size = new Dimension();
+        read(path, (reader, imageSize) -> {
+            size.setSize(imageSize.getSize());
+            return null; // Nothing to decode
+        });
+        if (size.width <= 0 || size.height <= 0) {
+            throw new IIOException("Empty image " + path);
+        }
+        return size;
+    }
+
+    private static BufferedImage read(String path, BiFunction<ImageReader, Rectangle, ImageReadParam> configure)
+            throws IOException {
+        File file = new File(path);
+        if (!file.canRead()) {
+            throw new IIOException("Can't read input file " + path);
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IIOException("Unsupported image format " + path);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = configure.apply(reader, new Rectangle(reader.getWidth(0), reader.getHeight(0)));
+                return param == null ? null : reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Aborts a read once the given number of rows has been stored in the image.
+     */
+    private static class StopAfterRows implements IIOReadUpdateListener {
+        private final int rows;
+
+        StopAfterRows(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage image, int minX, int minY, int width, int height,
+                int periodX, int periodY, int[] bands) {
+            // Interlaced images fill in their rows over several passes, they are read completely
+            if (periodY == 1 && minY + height >= rows) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage image, int pass, int minPass, int maxPass,
+                int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void passComplete(ImageReader source, BufferedImage image) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage thumbnail, int pass, int minPass,
+                int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage thumbnail, int minX, int minY, int width,
+                int height, int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage thumbnail) {
+        }
+    }
+}
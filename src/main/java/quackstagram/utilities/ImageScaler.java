@@ -0,0 +1,158 @@
+package quackstagram.utilities;
+
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+
+/**
+ * The ImageScaler class provides static utility methods to scale images into new {@link BufferedImage}s.
+ * <p>
+ * Images are shrunk by halving their size, averaging blocks of pixels, until they are less than twice the target
+ * size, and then resampled bilinearly to the exact size, working directly on the pixel arrays. This looks as smooth as
+ * {@code Image.getScaledInstance(..., Image.SCALE_SMOOTH)} for large reductions at a fraction of its cost,
+ * and returns a fully rendered image rather than a lazily produced one. The methods do not touch any
+ * Swing component, so they can be called from any thread.
+ * </p>
+ */
+public class ImageScaler {
+
+    /**
+     * Scales an image to the given size.
+     *
+     * @param source the image to scale
+     * @param width the width of the scaled image
+     * @param height the height of the scaled image
+     * @return a new image of the given size
+     */
+    public static BufferedImage scale(BufferedImage source, int width, int height) {
+        // Premultiplied, so averaging never bleeds the color of transparent pixels into their neighbours
+        int type = source.getTransparency() == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB
+                : BufferedImage.TYPE_INT_ARGB_PRE;
+
+        // Halved while the image is still at least twice the target size, then resampled once to the exact size
+        BufferedImage scaled = convert(source, type);
+        while (scaled.getWidth() >= 2 * width || scaled.getHeight() >= 2 * height) {
+            scaled = halve(scaled, scaled.getWidth() >= 2 * width, scaled.getHeight() >= 2 * height, type);
+        }
+        if (scaled.getWidth() == width && scaled.getHeight() == height && scaled != source) {
+            return scaled;
+        }
+        return resample(scaled, width, height, type);
+    }
+
+    /**
+     * Halves the width and/or the height of an image by averaging each 2 x 2, 2 x 1 or 1 x 2 block of pixels,
+     * which is what a bilinear resampling at exactly half the size samples.
+     */
+    private static BufferedImage halve(BufferedImage image, boolean halveWidth, boolean halveHeight, int type) {
+        int stepX = halveWidth ? 2 : 1;
+        int stepY = halveHeight ? 2 : 1;
+        int sourceWidth = image.getWidth();
+        int width = image.getWidth() / stepX;
+        int height = image.getHeight() / stepY;
+
+        int[] source = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BufferedImage halved = new BufferedImage(width, height, type);
+        int[] target = ((DataBufferInt) halved.getRaster().getDataBuffer()).getData();
+
+        // Channels are summed two at a time, 16 bits apart, so the sums of up to four bytes never overlap
+        for (int y = 0; y < height; y++) {
+            int row = y * stepY * sourceWidth;
+            int nextRow = halveHeight ? row + sourceWidth : row;
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                int column = x * stepX;
+                int nextColumn = halveWidth ? column + 1 : column;
+                int p0 = source[row + column];
+                int p1 = source[row + nextColumn];
+                int p2 = source[nextRow + column];
+                int p3 = source[nextRow + nextColumn];
+                // Pixels that are not part of the block are read twice, so every sum has four terms
+                int redBlue = (p0 & 0xFF00FF) + (p1 & 0xFF00FF) + (p2 & 0xFF00FF) + (p3 & 0xFF00FF);
+                int alphaGreen = ((p0 >>> 8) & 0xFF00FF) + ((p1 >>> 8) & 0xFF00FF)
+                        + ((p2 >>> 8) & 0xFF00FF) + ((p3 >>> 8) & 0xFF00FF);
+                target[out + x] = ((alphaGreen << 6) & 0xFF00FF00) | ((redBlue >>> 2) & 0xFF00FF);
+            }
+        }
+        return halved;
+    }
+
+    /**
+     * Resamples an image to the given size, interpolating each pixel bilinearly from the four nearest source pixels.
+     * Weights are fixed-point fractions of 256.
+     */
+    private static BufferedImage resample(BufferedImage image, int width, int height, int type) {
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+        int[] source = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BufferedImage resampled = new BufferedImage(width, height, type);
+        int[] target = ((DataBufferInt) resampled.getRaster().getDataBuffer()).getData();
+
+        // The source columns and weights are the same for every row
+        int[] left = new int[width];
+        int[] right = new int[width];
+        int[] weightRight = new int[width];
+        for (int x = 0; x < width; x++) {
+            double sourceX = Math.max(0, (x + 0.5) * sourceWidth / width - 0.5);
+            left[x] = Math.min((int) sourceX, sourceWidth - 1);
+            right[x] = Math.min(left[x] + 1, sourceWidth - 1);
+            weightRight[x] = (int) ((sourceX - left[x]) * 256);
+        }
+
+        for (int y = 0; y < height; y++) {
+            double sourceY = Math.max(0, (y + 0.5) * sourceHeight / height - 0.5);
+            int top = Math.min((int) sourceY, sourceHeight - 1);
+            int topRow = top * sourceWidth;
+            int bottomRow = Math.min(top + 1, sourceHeight - 1) * sourceWidth;
+            int weightBottom = (int) ((sourceY - top) * 256);
+            for (int x = 0; x < width; x++) {
+                int upper = lerp(source[topRow + left[x]], source[topRow + right[x]], weightRight[x]);
+                int lower = lerp(source[bottomRow + left[x]], source[bottomRow + right[x]], weightRight[x]);
+                target[y * width + x] = lerp(upper, lower, weightBottom);
+            }
+        }
+        return resampled;
+    }
+
+    /**
+     * Interpolates two pixels, with {@code weight} out of 256 going to the second one.
+     */
+    private static int lerp(int first, int second, int weight) {
+        int inverse = 256 - weight;
+        // Two channels at a time, 16 bits apart, so the weighted sums never spill into the next channel
+        int redBlue = ((first & 0xFF00FF) * inverse + (second & 0xFF00FF) * weight) >>> 8;
+        int alphaGreen = ((first >>> 8) & 0xFF00FF) * inverse + ((second >>> 8) & 0xFF00FF) * weight;
+        return (alphaGreen & 0xFF00FF00) | (redBlue & 0xFF00FF);
+    }
+
+    /**
+     * Returns the image itself if it already is of the given type, or a copy of it in that type.
+     */
+    private static BufferedImage convert(BufferedImage image, int type) {
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return converted;
+    }
+
+    /**
+     * Reads an image file and scales it to the given size. Large images are decoded subsampled,
+     * see {@link ImageDecoder#readSubsampled}.
+     *
+     * @param path the path of the image file
+     * @param width the width of the scaled image
+     * @param height the height of the scaled image
+     * @return a new image of the given size
+     * @throws IOException if the file could not be read or is not in a supported format
+     */
+    public static BufferedImage read(String path, int width, int height) throws IOException {
+        return scale(ImageDecoder.readSubsampled(path, width, height), width, height);
+    }
+}
@@ -0,0 +1,57 @@
+package quackstagram.utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import quackstagram.models.Notification;
+
+/**
+ * The {@code NotificationArchive} class keeps the notifications that no longer fit in their recipient's inbox.
+ * <p>
+ * Every compaction that drops notifications from the notifications file writes them to a new gzip-compressed
+ * segment in {@code data/archive}, named after the time it was written. A segment holds the dropped
+ * notifications in the same text format as the notifications file, so it can be read with {@code zcat}.
+ * </p>
+ */
+class NotificationArchive {
+    private static final Path ARCHIVE_DIR = Paths.get("data", "archive");
+
+    /**
+     * Writes notifications to a new archive segment.
+     *
+     * @param notifications the notifications to archive
+     * @return {@code true} if the segment was written, or there was nothing to archive
+     */
+    static boolean write(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return true;
+        }
+
+        try {
+            Files.createDirectories(ARCHIVE_DIR);
+            Path segment = ARCHIVE_DIR.resolve("notifications-" + System.currentTimeMillis() + ".txt.gz");
+            Path temporaryFile = segment.resolveSibling(segment.getFileName() + ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temporaryFile)), StandardCharsets.UTF_8))) {
+                for (Notification notification : notifications) {
+                    writer.write(String.join("; ", notification.serialize()));
+                    writer.newLine();
+                }
+            }
+            Files.move(temporaryFile, segment, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Archive path: (" + ARCHIVE_DIR + ") could not be written");
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
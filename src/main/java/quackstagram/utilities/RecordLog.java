@@ -0,0 +1,265 @@
+package quackstagram.utilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The {@code RecordLog} class is an append-only log of changes made to one of the data files.
+ * Every change is written as a single versioned line, {@code "<version>; <operation>; <fields...>"},
+ * so saving an object costs one small append instead of rewriting the whole data file.
+ * The log is replayed on top of the data file when it is loaded, and emptied once its records
+ * have been folded back into the data file by compaction.
+ * <p>
+ * The user and moderator applications run as separate processes on the same files, so every access to the log
+ * holds a lock on a {@code .lock} file next to it, and the log keeps track of the bytes this process has replayed
+ * or written. Before each append the records appended by another process are read, so versions keep increasing
+ * across processes. A log holding records this process has not replayed is never folded, since the data file
+ * would be written without them. Emptying the log leaves a checkpoint record carrying the last version, so
+ * versions also keep increasing across compactions, and another process can tell that the data file it read
+ * has been rewritten.
+ * </p>
+ */
+class RecordLog {
+    static final String PUT = "PUT"; // insert or replace the object with the same ID
+    static final String DELETE = "DEL"; // remove the object with the given ID
+    private static final String CHECKPOINT = "CHK"; // first record after a compaction, holds no change
+
+    private final Path path;
+    private final Path lockPath;
+    private long version = 0; // version of the last record in the log
+    private int recordCount = 0;
+    private long length = 0; // bytes of the log read or written by this process
+    private long checkpoint = 0; // version of the checkpoint the log started with when it was read
+    private long unreplayedFrom = -1; // offset of the first record another process appended, -1 if none
+    private boolean rewritten = false; // another process folded the log into the data file after it was read
+
+    /**
+     * Constructs a log stored at the given path. The file is only created by the first append.
+     *
+     * @param path the path of the log file
+     */
+    RecordLog(Path path) {
+        this.path = path;
+        this.lockPath = path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    /**
+     * Replays every record in the log, oldest first.
+     *
+     * @param handler called with the operation and the fields of each record
+     */
+    void replay(BiConsumer<String, String[]> handler) {
+        locked(() -> {
+            length = 0;
+            recordCount = read(0, handler);
+            unreplayedFrom = -1;
+            rewritten = false;
+            return true;
+        });
+    }
+
+    /**
+     * Replays the records other processes appended since the log was last read, oldest first.
+     * Records of this process that come after them are replayed again, which leaves the same state.
+     *
+     * @param handler called with the operation and the fields of each record
+     * @return {@code false} if another process folded the log into the data file in the meantime, so the data
+     *         file has to be read again and the log replayed from the start
+     */
+    boolean catchUp(BiConsumer<String, String[]> handler) {
+        return locked(() -> {
+            refresh();
+            if (rewritten) {
+                return false;
+            }
+            if (unreplayedFrom >= 0) {
+                read(unreplayedFrom, handler); // Counted when refresh read their versions
+                unreplayedFrom = -1;
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Appends one record to the end of the log.
+     *
+     * @param operation the operation, {@link #PUT} or {@link #DELETE}
+     * @param fields the serialized object for {@link #PUT}, or its ID for {@link #DELETE}
+     */
+    void append(String operation, String... fields) {
+        appendAll(operation, Collections.singletonList(fields));
+    }
+
+    /**
+     * Appends several records with the same operation to the end of the log in one write.
+     *
+     * @param operation the operation, {@link #PUT} or {@link #DELETE}
+     * @param records the fields of each record, as for {@link #append}
+     */
+    void appendAll(String operation, List<String[]> records) {
+        locked(() -> {
+            refresh(); // Continue from the versions of other processes
+            StringBuilder lines = new StringBuilder();
+            for (String[] fields : records) {
+                version++;
+                lines.append(version).append("; ").append(operation).append("; ")
+                        .append(String.join("; ", fields)).append(System.lineSeparator());
+            }
+            byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(bytes));
+            }
+            length += bytes.length;
+            recordCount += records.size();
+            return true;
+        });
+    }
+
+    /**
+     * Returns the number of records currently in the log.
+     *
+     * @return the number of records not yet folded into the data file
+     */
+    int size() {
+        return recordCount;
+    }
+
+    /**
+     * Folds the log into its data file: writes the data file while holding the lock, then empties the log.
+     * Nothing is written if the log holds records this process has not replayed.
+     *
+     * @param writeDataFile writes the data file from memory, returns {@code false} to keep the log
+     * @return {@code true} if the log was folded
+     */
+    boolean fold(BooleanSupplier writeDataFile) {
+        return locked(() -> {
+            refresh();
+            if (rewritten || unreplayedFrom >= 0 || !writeDataFile.getAsBoolean()) {
+                return false;
+            }
+
+            // Versions keep increasing across compactions
+            byte[] bytes = (version + "; " + CHECKPOINT + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+            Path temporaryFile = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(temporaryFile, bytes);
+            Files.move(temporaryFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            length = bytes.length;
+            checkpoint = version;
+            recordCount = 0;
+            return true;
+        });
+    }
+
+    /**
+     * Reads the versions of the records other processes appended since the log was last read.
+     */
+    private void refresh() throws IOException {
+        long size = Files.exists(path) ? Files.size(path) : 0;
+        if (size < length || (size > 0 && firstCheckpoint() != checkpoint)) {
+            rewritten = true; // Folded by another process, the whole log is new
+            recordCount = read(0, null);
+            return;
+        }
+        if (size > length) {
+            if (unreplayedFrom < 0) {
+                unreplayedFrom = length;
+            }
+            recordCount += read(length, null);
+        }
+    }
+
+    private long firstCheckpoint() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            channel.read(buffer);
+            String start = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            String[] parts = start.split("; |\\R", 3);
+            return parts.length >= 2 && parts[1].equals(CHECKPOINT) ? Long.parseLong(parts[0]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the records from the given offset to the end of the log, passing them to the handler if there is one.
+     *
+     * @return the number of records read
+     */
+    private int read(long from, BiConsumer<String, String[]> handler) throws IOException {
+        if (!Files.exists(path)) {
+            length = 0;
+            return 0;
+        }
+
+        byte[] bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - from));
+            channel.read(buffer, from);
+            bytes = buffer.array();
+        }
+        length = from + bytes.length;
+
+        boolean first = from == 0;
+        int records = 0;
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\\R")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] parts = line.split("; ");
+            try {
+                long recordVersion = Long.parseLong(parts[0]);
+                version = Math.max(version, recordVersion);
+                if (CHECKPOINT.equals(parts[1])) {
+                    if (first) {
+                        checkpoint = recordVersion;
+                    }
+                } else {
+                    if (handler != null) {
+                        handler.accept(parts[1], Arrays.copyOfRange(parts, 2, parts.length));
+                    }
+                    records++;
+                }
+            } catch (RuntimeException e) {
+                // A torn write at the end of the log, skip it
+                System.out.println("Skipping unreadable record in " + path + ": " + line);
+            }
+            first = false;
+        }
+        return records;
+    }
+
+    /**
+     * Runs an action while holding the lock shared with the other processes.
+     */
+    private boolean locked(LockedAction action) {
+        try (FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                return action.run();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            System.out.println("Log path: (" + path + ") could not be accessed");
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private interface LockedAction {
+        boolean run() throws IOException;
+    }
+}
@@ -0,0 +1,327 @@
+package quackstagram.utilities;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code SecondaryIndex} class maps the values of one column of a data file to the byte offsets
+ * of the lines holding them, so the lines of a single key can be read by seeking straight to them
+ * instead of parsing the whole file.
+ * <p>
+ * The index is persisted next to the data file as lines of {@code "<key>; <offset> <offset> ..."},
+ * preceded by a header with the size and modification time of the data file it was built from.
+ * If the header no longer matches the data file, the index is rebuilt with a single scan. The header is checked
+ * again before every lookup, since the other application may rewrite the data file while this one is running,
+ * and the offsets of the old file would point into the middle of the new one's lines.
+ * </p>
+ * <p>
+ * The data file is read through a memory-mapped file channel and scanned as bytes: the key column is found
+ * and compared in place, and only the lines that are asked for are decoded into strings.
+ * </p>
+ */
+class SecondaryIndex {
+    private final Path dataFile;
+    private final Path indexFile;
+    private final int keyColumn;
+    private Map<String, long[]> offsets = new HashMap<>(); // Only the keys looked up so far if not built
+    private boolean built = false;
+    private String indexedVersion = null; // size and modification time of the data file the offsets point into
+
+    /**
+     * Constructs an index over one column of a data file.
+     *
+     * @param dataFile the data file to index
+     * @param indexFile the file the index is persisted to
+     * @param keyColumn the zero-based column of the data file holding the key
+     */
+    SecondaryIndex(Path dataFile, Path indexFile, int keyColumn) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.keyColumn = keyColumn;
+    }
+
+    /**
+     * Loads the persisted index. If it is missing or stale, it is not rebuilt right away: the first key
+     * looked up is found by scanning the data file for it alone, which is all a login needs, and the index
+     * is rebuilt once a second key or every key is needed.
+     */
+    void open() {
+        offsets = new HashMap<>();
+        built = load();
+        if (!built) {
+            indexedVersion = currentVersion();
+        }
+    }
+
+    /**
+     * Returns every key present in the data file.
+     *
+     * @return the set of indexed keys
+     */
+    Set<String> keys() {
+        checkDataFile();
+        if (!built) {
+            rebuild();
+        }
+        return offsets.keySet();
+    }
+
+    /**
+     * Returns the byte offsets of the lines holding the given key, in file order.
+     *
+     * @param key the key to look up
+     * @return the line offsets, empty if the key is not in the data file
+     */
+    long[] offsetsOf(String key) {
+        checkDataFile();
+        if (!built && !offsets.containsKey(key)) {
+            if (offsets.isEmpty()) {
+                offsets.put(key, scanFor(key));
+            } else {
+                rebuild();
+            }
+        }
+        return offsets.getOrDefault(key, new long[0]);
+    }
+
+    /**
+     * Reads the lines of the data file holding the given key, in file order. The offsets and the lines are
+     * taken from the same version of the data file.
+     *
+     * @param key the key to look up
+     * @return the matching lines by their offset, or an empty map if the key is not in the data file
+     */
+    LinkedHashMap<Long, String> readLines(String key) {
+        LinkedHashMap<Long, String> lines = new LinkedHashMap<>();
+        long[] lineOffsets = offsetsOf(key);
+        if (lineOffsets.length == 0) {
+            return lines;
+        }
+
+        try {
+            ByteBuffer data = map();
+            for (long offset : lineOffsets) {
+                int lineStart = (int) offset;
+                int lineEnd = lineEnd(data, lineStart);
+                byte[] line = new byte[lineEnd - lineStart];
+                data.get(lineStart, line);
+                lines.put(offset, new String(line, StandardCharsets.UTF_8));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("File path: (" + dataFile + ") could not be read");
+            e.printStackTrace();
+        }
+
+        return lines;
+    }
+
+    /**
+     * Scans the data file, recording the offset of every line under its key, and persists the result.
+     * Only the key of each line is decoded.
+     */
+    void rebuild() {
+        indexedVersion = currentVersion();
+        Map<String, List<Long>> collected = new HashMap<>();
+        scan((data, lineStart, keyStart, keyEnd) -> {
+            byte[] key = new byte[keyEnd - keyStart];
+            data.get(keyStart, key);
+            collected.computeIfAbsent(new String(key, StandardCharsets.UTF_8), k -> new ArrayList<>())
+                    .add((long) lineStart);
+        });
+
+        offsets = new HashMap<>();
+        collected.forEach((key, list) -> offsets.put(key, list.stream().mapToLong(Long::longValue).toArray()));
+        built = true;
+        save();
+    }
+
+    /**
+     * Finds the lines holding one key by comparing the key column of every line with it byte by byte,
+     * without decoding any line.
+     */
+    private long[] scanFor(String key) {
+        byte[] wanted = key.getBytes(StandardCharsets.UTF_8);
+        List<Long> found = new ArrayList<>();
+        scan((data, lineStart, keyStart, keyEnd) -> {
+            if (keyEnd - keyStart != wanted.length) {
+                return;
+            }
+            for (int i = 0; i < wanted.length; i++) {
+                if (data.get(keyStart + i) != wanted[i]) {
+                    return;
+                }
+            }
+            found.add((long) lineStart);
+        });
+        return found.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Calls the visitor with the position of the key column of every non-empty line of the data file that has one.
+     * The separator is searched for byte by byte, which is safe because no byte of a multi-byte UTF-8 character
+     * can be mistaken for {@code ';'} or {@code ' '}.
+     */
+    private void scan(KeyVisitor visitor) {
+        if (!Files.exists(dataFile)) {
+            return;
+        }
+
+        try {
+            ByteBuffer data = map();
+            int lineStart = 0;
+            while (lineStart < data.limit()) {
+                int lineEnd = lineEnd(data, lineStart);
+                int keyStart = lineStart;
+                for (int column = 0; column < keyColumn && keyStart >= 0; column++) {
+                    int separator = nextSeparator(data, keyStart, lineEnd);
+                    keyStart = separator < lineEnd ? separator + 2 : -1;
+                }
+                if (lineEnd > lineStart && keyStart >= 0) {
+                    visitor.visit(data, lineStart, keyStart, nextSeparator(data, keyStart, lineEnd));
+                }
+                lineStart = nextLine(data, lineEnd);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("File path: (" + dataFile + ") could not be indexed");
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reopens the index if the data file was rewritten since the offsets were taken from it.
+     */
+    private void checkDataFile() {
+        if (!currentVersion().equals(indexedVersion)) {
+            open();
+        }
+    }
+
+    private ByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Returns the end of the line starting at the given position, excluding the line break.
+     */
+    private static int lineEnd(ByteBuffer data, int lineStart) {
+        int end = lineStart;
+        while (end < data.limit() && data.get(end) != '\n') {
+            end++;
+        }
+        return end > lineStart && data.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private static int nextLine(ByteBuffer data, int lineEnd) {
+        int next = lineEnd;
+        while (next < data.limit() && data.get(next) != '\n') {
+            next++; // Skips the carriage return of a Windows line break
+        }
+        return next + 1;
+    }
+
+    /**
+     * Returns the position of the next {@code "; "} separator of a line, or the end of the line if there is none.
+     */
+    private static int nextSeparator(ByteBuffer data, int from, int lineEnd) {
+        for (int i = from; i + 1 < lineEnd; i++) {
+            if (data.get(i) == ';' && data.get(i + 1) == ' ') {
+                return i;
+            }
+        }
+        return lineEnd;
+    }
+
+    private String dataFileVersion() throws IOException {
+        if (!Files.exists(dataFile)) {
+            return "0; 0";
+        }
+        return Files.size(dataFile) + "; " + Files.getLastModifiedTime(dataFile).toMillis();
+    }
+
+    private String currentVersion() {
+        try {
+            return dataFileVersion();
+        } catch (IOException e) {
+            return ""; // Matches no header, so the index is opened again
+        }
+    }
+
+    private boolean load() {
+        if (!Files.exists(indexFile)) {
+            return false;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile)) {
+            String version = reader.readLine();
+            if (!dataFileVersion().equals(version)) {
+                return false;
+            }
+
+            Map<String, long[]> loaded = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("; ");
+                String[] values = parts[1].split(" ");
+                long[] lineOffsets = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    lineOffsets[i] = Long.parseLong(values[i]);
+                }
+                loaded.put(parts[0], lineOffsets);
+            }
+            offsets = loaded;
+            indexedVersion = version;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Index path: (" + indexFile + ") is unreadable, rebuilding it");
+            return false;
+        }
+    }
+
+    private void save() {
+        Path temporaryFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile)) {
+            writer.write(indexedVersion);
+            writer.newLine();
+            for (Map.Entry<String, long[]> entry : offsets.entrySet()) {
+                StringBuilder line = new StringBuilder(entry.getKey()).append("; ");
+                for (int i = 0; i < entry.getValue().length; i++) {
+                    line.append(i == 0 ? "" : " ").append(entry.getValue()[i]);
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Receives the position of a line and of its key column in the mapped data file.
+     */
+    private interface KeyVisitor {
+        void visit(ByteBuffer data, int lineStart, int keyStart, int keyEnd);
+    }
+}
@@ -0,0 +1,392 @@
+package quackstagram.utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import quackstagram.models.AbstractModel;
+import quackstagram.models.Notification;
+import quackstagram.models.Picture;
+import quackstagram.models.User;
+
+/**
+ * The {@code Snapshot} class is a binary copy of one of the data files, which is loaded without parsing any text.
+ * <p>
+ * A snapshot file starts with a header holding a magic number, the column layout, the size and modification time
+ * of the data file it was written from and the number of rows. A dictionary of the usernames used in the file
+ * follows, and then the rows, one column at a time: text as length-prefixed UTF-8, usernames as varint indexes
+ * into the dictionary and counters as zigzag varints. A snapshot whose header no longer matches its data file,
+ * for example because the text file was edited or imported by hand, is ignored and written again.
+ * </p>
+ * <p>
+ * The columns are decoded all at once when the snapshot is read, but the objects of an owner or recipient are
+ * only created when they are asked for, so it can stand in for a {@link SecondaryIndex} over the data file.
+ * </p>
+ *
+ * @param <T> the type of the rows
+ */
+class Snapshot<T extends AbstractModel<T>> {
+    private static final int MAGIC = 0x51534E50; // "QSNP"
+    private static final int VERSION = 1;
+
+    /**
+     * The ways a column can be stored.
+     */
+    enum Column {
+        TEXT, // Length-prefixed UTF-8
+        USERNAME, // Index into the username dictionary
+        USERNAMES, // Space-separated usernames: their number, then an index into the dictionary for each
+        COUNTER // Zigzag varint
+    }
+
+    static final Format<User> USERS = new Format<>(FileHandler.USERS_FILE, FileHandler.USERS_SNAPSHOT,
+            User::createInstance, 0,
+            new Column[] { Column.USERNAME, Column.TEXT, Column.TEXT, Column.TEXT, Column.USERNAMES,
+                Column.COUNTER, Column.COUNTER },
+            (snapshot, row) -> new User(snapshot.username(0, row), snapshot.text(1, row), snapshot.text(2, row),
+                    snapshot.text(3, row), snapshot.usernames(4, row), snapshot.counter(5, row),
+                    snapshot.counter(6, row)));
+
+    static final Format<Picture> PICTURES = new Format<>(FileHandler.PICTURES_FILE, FileHandler.PICTURES_SNAPSHOT,
+            Picture::createInstance, 1,
+            new Column[] { Column.TEXT, Column.USERNAME, Column.TEXT, Column.TEXT, Column.COUNTER, Column.USERNAMES },
+            (snapshot, row) -> new Picture(snapshot.text(0, row), snapshot.username(1, row), snapshot.text(2, row),
+                    snapshot.text(3, row), snapshot.counter(4, row), snapshot.usernames(5, row)));
+
+    static final Format<Notification> NOTIFICATIONS = new Format<>(FileHandler.NOTIFICATIONS_FILE,
+            FileHandler.NOTIFICATIONS_SNAPSHOT, Notification::createInstance, 0,
+            new Column[] { Column.USERNAME, Column.USERNAMES, Column.TEXT, Column.TEXT, Column.COUNTER },
+            (snapshot, row) -> new Notification(snapshot.username(0, row), snapshot.usernames(1, row),
+                    snapshot.text(2, row), snapshot.text(3, row), snapshot.counter(4, row)));
+
+    private final Format<T> format;
+    private final int rowCount;
+    private final String[] dictionary;
+    private final Object[] columns; // String[] for TEXT, int[] for USERNAME and COUNTER, int[][] for USERNAMES
+    private final Map<String, int[]> rowsByKey = new HashMap<>();
+
+    private Snapshot(Format<T> format, int rowCount, String[] dictionary, Object[] columns) {
+        this.format = format;
+        this.rowCount = rowCount;
+        this.dictionary = dictionary;
+        this.columns = columns;
+
+        // Rows grouped by key, in file order, found by counting the dictionary indexes of the key column
+        int[] keyColumn = (int[]) columns[format.keyColumn];
+        int[] rowsPerKey = new int[dictionary.length];
+        for (int key : keyColumn) {
+            rowsPerKey[key]++;
+        }
+        int[][] rows = new int[dictionary.length][];
+        for (int key = 0; key < dictionary.length; key++) {
+            if (rowsPerKey[key] > 0) {
+                rows[key] = new int[rowsPerKey[key]];
+                rowsByKey.put(dictionary[key], rows[key]);
+                rowsPerKey[key] = 0;
+            }
+        }
+        for (int row = 0; row < rowCount; row++) {
+            int key = keyColumn[row];
+            rows[key][rowsPerKey[key]++] = row;
+        }
+    }
+
+    /**
+     * Returns every value of the key column, the owner or recipient of the rows.
+     *
+     * @return the set of keys
+     */
+    Set<String> keys() {
+        return rowsByKey.keySet();
+    }
+
+    /**
+     * Returns the positions of the rows holding the given key, in file order.
+     *
+     * @param key the key to look up
+     * @return the row positions, empty if the key is not in the snapshot
+     */
+    int[] rowsOf(String key) {
+        return rowsByKey.getOrDefault(key, new int[0]);
+    }
+
+    /**
+     * Creates the object stored at the given position.
+     *
+     * @param row the zero-based position of the row
+     * @return a new object holding the row
+     */
+    T row(int row) {
+        return format.rowCreator.create(this, row);
+    }
+
+    /**
+     * Creates the objects of every row, in file order.
+     *
+     * @return a new list of the rows
+     */
+    ArrayList<T> rows() {
+        ArrayList<T> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(row(row));
+        }
+        return rows;
+    }
+
+    String text(int column, int row) {
+        return ((String[]) columns[column])[row];
+    }
+
+    String username(int column, int row) {
+        return dictionary[((int[]) columns[column])[row]];
+    }
+
+    ArrayList<String> usernames(int column, int row) {
+        int[] indexes = ((int[][]) columns[column])[row];
+        ArrayList<String> usernames = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            usernames.add(dictionary[index]);
+        }
+        return usernames;
+    }
+
+    int counter(int column, int row) {
+        return ((int[]) columns[column])[row];
+    }
+
+    /**
+     * Decodes a snapshot.
+     *
+     * @param format the format of the snapshot
+     * @param buffer the content of the snapshot file
+     * @param dataFileSize the current size of the data file
+     * @param dataFileModified the current modification time of the data file, in milliseconds
+     * @return the snapshot, or null if it was not written from the current data file in this format
+     * @throws RuntimeException if the snapshot is truncated or corrupt
+     */
+    static <T extends AbstractModel<T>> Snapshot<T> decode(Format<T> format, ByteBuffer buffer, long dataFileSize,
+            long dataFileModified) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || !Arrays.equals(readColumns(buffer), format.columns)
+                || buffer.getLong() != dataFileSize || buffer.getLong() != dataFileModified) {
+            return null;
+        }
+
+        int rowCount = readVarint(buffer);
+        String[] dictionary = new String[readVarint(buffer)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer);
+        }
+
+        Object[] columns = new Object[format.columns.length];
+        for (int column = 0; column < columns.length; column++) {
+            columns[column] = readColumn(format.columns[column], buffer, rowCount, dictionary.length);
+        }
+        return new Snapshot<>(format, rowCount, dictionary, columns);
+    }
+
+    /**
+     * Encodes rows as a snapshot of a data file.
+     *
+     * @param format the format of the snapshot
+     * @param rows the rows, in file order
+     * @param dataFileSize the size of the data file the rows were written to
+     * @param dataFileModified the modification time of the data file, in milliseconds
+     * @return the content of the snapshot file
+     */
+    static <T extends AbstractModel<T>> byte[] encode(Format<T> format, List<T> rows, long dataFileSize,
+            long dataFileModified) {
+        List<String[]> fields = new ArrayList<>(rows.size());
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> usernames = new ArrayList<>();
+        for (T row : rows) {
+            String[] serialized = row.serialize();
+            fields.add(serialized);
+            for (int column = 0; column < format.columns.length; column++) {
+                if (format.columns[column] == Column.USERNAME) {
+                    addToDictionary(serialized[column], dictionary, usernames);
+                } else if (format.columns[column] == Column.USERNAMES) {
+                    for (String username : serialized[column].split(" ")) {
+                        addToDictionary(username, dictionary, usernames);
+                    }
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer header = ByteBuffer.allocate(8);
+        out.writeBytes(header.putInt(MAGIC).putInt(VERSION).array());
+        writeVarint(out, format.columns.length);
+        for (Column column : format.columns) {
+            out.write(column.ordinal());
+        }
+        out.writeBytes(ByteBuffer.allocate(16).putLong(dataFileSize).putLong(dataFileModified).array());
+        writeVarint(out, rows.size());
+
+        writeVarint(out, usernames.size());
+        for (String username : usernames) {
+            writeString(out, username);
+        }
+
+        for (int column = 0; column < format.columns.length; column++) {
+            for (String[] row : fields) {
+                writeValue(out, format.columns[column], row[column], dictionary);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void addToDictionary(String username, Map<String, Integer> dictionary, List<String> usernames) {
+        if (dictionary.putIfAbsent(username, usernames.size()) == null) {
+            usernames.add(username);
+        }
+    }
+
+    private static Column[] readColumns(ByteBuffer buffer) {
+        Column[] columns = new Column[readVarint(buffer)];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Column.values()[buffer.get()];
+        }
+        return columns;
+    }
+
+    private static Object readColumn(Column type, ByteBuffer buffer, int rowCount, int dictionarySize) {
+        switch (type) {
+            case TEXT: {
+                String[] values = new String[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = readString(buffer);
+                }
+                return values;
+            }
+            case USERNAMES: {
+                int[][] values = new int[rowCount][];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = new int[readVarint(buffer)];
+                    for (int i = 0; i < values[row].length; i++) {
+                        values[row][i] = readIndex(buffer, dictionarySize);
+                    }
+                }
+                return values;
+            }
+            case USERNAME: {
+                int[] values = new int[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    values[row] = readIndex(buffer, dictionarySize);
+                }
+                return values;
+            }
+            default: {
+                int[] values = new int[rowCount];
+                for (int row = 0; row < rowCount; row++) {
+                    int zigzag = readVarint(buffer);
+                    values[row] = (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+                return values;
+            }
+        }
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, Column type, String value,
+            Map<String, Integer> dictionary) {
+        switch (type) {
+            case TEXT:
+                writeString(out, value);
+                break;
+            case USERNAMES: {
+                String[] usernames = value.split(" ");
+                writeVarint(out, usernames.length);
+                for (String username : usernames) {
+                    writeVarint(out, dictionary.get(username));
+                }
+                break;
+            }
+            case USERNAME:
+                writeVarint(out, dictionary.get(value));
+                break;
+            default: {
+                int counter = Integer.parseInt(value);
+                writeVarint(out, (counter << 1) ^ (counter >> 31));
+                break;
+            }
+        }
+    }
+
+    private static int readIndex(ByteBuffer buffer, int dictionarySize) {
+        int index = readVarint(buffer);
+        if (index < 0 || index >= dictionarySize) {
+            throw new IllegalStateException("Username index " + index + " is not in the dictionary");
+        }
+        return index;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Varint is longer than 5 bytes");
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    /**
+     * Creates the object stored in one row of a snapshot.
+     */
+    interface RowCreator<T extends AbstractModel<T>> {
+        T create(Snapshot<T> snapshot, int row);
+    }
+
+    /**
+     * Describes the snapshot of one data file: where it is stored, the way each column of the data file
+     * is stored, which column holds the key the rows are looked up by, and how rows are turned into objects.
+     */
+    static class Format<T extends AbstractModel<T>> {
+        final Path dataFile;
+        final Path snapshotFile;
+        final Function<String[], T> instanceCreator;
+        private final int keyColumn;
+        private final Column[] columns;
+        private final RowCreator<T> rowCreator;
+
+        Format(Path dataFile, Path snapshotFile, Function<String[], T> instanceCreator, int keyColumn,
+                Column[] columns, RowCreator<T> rowCreator) {
+            this.dataFile = dataFile;
+            this.snapshotFile = snapshotFile;
+            this.instanceCreator = instanceCreator;
+            this.keyColumn = keyColumn;
+            this.columns = columns;
+            this.rowCreator = rowCreator;
+        }
+    }
+}
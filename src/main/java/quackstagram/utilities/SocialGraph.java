@@ -0,0 +1,229 @@
+package quackstagram.utilities;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+import quackstagram.models.User;
+
+/**
+ * The {@code SocialGraph} class indexes who follows whom, in both directions, by the users' IDs from the
+ * {@link quackstagram.models.UsernameDictionary}.
+ * <p>
+ * Each direction is stored in compressed sparse row form: one array holds the followed (or following) IDs of every
+ * user back to back, each user's IDs sorted, and a second array holds where each user's IDs start. Follows added
+ * since the arrays were built are kept in a small sorted array per user, and merged into the compressed arrays
+ * once they make up more than an eighth of all follows. Follower and following counts are kept per user, so
+ * reading them costs O(1), checking whether a user follows another costs a binary search among the users they
+ * follow, and the followers of a user, which a new picture is pushed to, are read from one contiguous range.
+ * </p>
+ * <p>
+ * The graph is not thread-safe, {@link DataRepository} only uses it under its lock.
+ * </p>
+ */
+class SocialGraph {
+    private static final int[] NONE = new int[0];
+    private static final int MIN_MERGED_FOLLOWS = 1024; // added follows kept aside before they are merged
+
+    private int[] followingStarts; // index of each user's first followed ID, plus the end of the last user's
+    private int[] followingIds;
+    private int[] followerStarts;
+    private int[] followerIds;
+    private final HashMap<Integer, int[]> addedFollowing = new HashMap<>(); // follows added since the last merge
+    private final HashMap<Integer, int[]> addedFollowers = new HashMap<>();
+    private int addedCount = 0;
+    private int followCount = 0;
+    private int[] followingCounts = NONE;
+    private int[] followerCounts = NONE;
+
+    /**
+     * Builds the graph of the given users' follows.
+     *
+     * @param users every user
+     */
+    SocialGraph(Collection<User> users) {
+        int[][] following = new int[0][];
+        for (User user : users) {
+            if (user.getId() >= following.length) {
+                following = Arrays.copyOf(following, Math.max(user.getId() + 1, following.length * 2));
+            }
+            following[user.getId()] = Arrays.stream(user.getFollowingIds()).sorted().distinct().toArray();
+        }
+        build(following);
+    }
+
+    /**
+     * Adds a follow to the graph.
+     *
+     * @param follower the ID of the user who follows
+     * @param followed the ID of the user who is followed
+     * @return true if the follow was added, false if it was in the graph already or a user follows themselves
+     */
+    boolean follow(int follower, int followed) {
+        if (follower == followed || follows(follower, followed)) {
+            return false;
+        }
+        addedFollowing.put(follower, insert(addedFollowing.getOrDefault(follower, NONE), followed));
+        addedFollowers.put(followed, insert(addedFollowers.getOrDefault(followed, NONE), follower));
+        followingCounts = ensureCapacity(followingCounts, follower);
+        followingCounts[follower]++;
+        followerCounts = ensureCapacity(followerCounts, followed);
+        followerCounts[followed]++;
+        followCount++;
+        if (++addedCount > Math.max(MIN_MERGED_FOLLOWS, followCount / 8)) {
+            merge();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a user follows another.
+     *
+     * @param follower the ID of the user who may follow
+     * @param followed the ID of the user who may be followed
+     * @return true if the follow is in the graph
+     */
+    boolean follows(int follower, int followed) {
+        if (follower < 0 || followed < 0) {
+            return false;
+        }
+        if (follower < followingStarts.length - 1 && Arrays.binarySearch(followingIds,
+                followingStarts[follower], followingStarts[follower + 1], followed) >= 0) {
+            return true;
+        }
+        int[] added = addedFollowing.get(follower);
+        return added != null && Arrays.binarySearch(added, followed) >= 0;
+    }
+
+    /**
+     * Returns the number of users a user follows.
+     *
+     * @param userId the ID of the user
+     * @return the number of users they follow
+     */
+    int getFollowingCount(int userId) {
+        return userId >= 0 && userId < followingCounts.length ? followingCounts[userId] : 0;
+    }
+
+    /**
+     * Returns the number of users who follow a user.
+     *
+     * @param userId the ID of the user
+     * @return the number of their followers
+     */
+    int getFollowersCount(int userId) {
+        return userId >= 0 && userId < followerCounts.length ? followerCounts[userId] : 0;
+    }
+
+    /**
+     * Returns the IDs of the users a user follows.
+     *
+     * @param userId the ID of the user
+     * @return the IDs, sorted
+     */
+    int[] getFollowing(int userId) {
+        return row(followingStarts, followingIds, addedFollowing, userId);
+    }
+
+    /**
+     * Returns the IDs of the users who follow a user.
+     *
+     * @param userId the ID of the user
+     * @return the IDs, sorted
+     */
+    int[] getFollowers(int userId) {
+        return row(followerStarts, followerIds, addedFollowers, userId);
+    }
+
+    /**
+     * Merges the added follows into the compressed arrays.
+     */
+    private void merge() {
+        int userCount = followingStarts.length - 1;
+        for (int follower : addedFollowing.keySet()) {
+            userCount = Math.max(userCount, follower + 1);
+        }
+        int[][] following = new int[userCount][];
+        for (int userId = 0; userId < userCount; userId++) {
+            following[userId] = getFollowing(userId);
+        }
+        build(following);
+    }
+
+    private void build(int[][] following) {
+        int userCount = following.length;
+        followCount = 0;
+        for (int[] followed : following) {
+            if (followed != null) {
+                followCount += followed.length;
+                for (int userId : followed) {
+                    userCount = Math.max(userCount, userId + 1);
+                }
+            }
+        }
+
+        followingStarts = new int[userCount + 1];
+        followingIds = new int[followCount];
+        followingCounts = new int[userCount];
+        followerCounts = new int[userCount];
+        for (int userId = 0, next = 0; userId < userCount; userId++) {
+            followingStarts[userId] = next;
+            if (userId < following.length && following[userId] != null) {
+                System.arraycopy(following[userId], 0, followingIds, next, following[userId].length);
+                next += following[userId].length;
+                followingCounts[userId] = following[userId].length;
+                for (int followed : following[userId]) {
+                    followerCounts[followed]++;
+                }
+            }
+        }
+        followingStarts[userCount] = followCount;
+
+        // Followers are filled in by increasing follower ID, so each user's followers end up sorted
+        followerStarts = new int[userCount + 1];
+        for (int userId = 0; userId < userCount; userId++) {
+            followerStarts[userId + 1] = followerStarts[userId] + followerCounts[userId];
+        }
+        followerIds = new int[followCount];
+        int[] next = Arrays.copyOf(followerStarts, userCount);
+        for (int follower = 0; follower < userCount; follower++) {
+            for (int i = followingStarts[follower]; i < followingStarts[follower + 1]; i++) {
+                followerIds[next[followingIds[i]]++] = follower;
+            }
+        }
+
+        addedFollowing.clear();
+        addedFollowers.clear();
+        addedCount = 0;
+    }
+
+    private static int[] row(int[] starts, int[] ids, HashMap<Integer, int[]> added, int userId) {
+        int[] stored = userId >= 0 && userId < starts.length - 1
+                ? Arrays.copyOfRange(ids, starts[userId], starts[userId + 1])
+                : NONE;
+        int[] extra = added.get(userId);
+        if (extra == null) {
+            return stored;
+        }
+
+        // Both are sorted and have no ID in common
+        int[] merged = new int[stored.length + extra.length];
+        for (int i = 0, j = 0, k = 0; k < merged.length; k++) {
+            merged[k] = j == extra.length || (i < stored.length && stored[i] < extra[j]) ? stored[i++] : extra[j++];
+        }
+        return merged;
+    }
+
+    private static int[] insert(int[] sorted, int id) {
+        int index = -Arrays.binarySearch(sorted, id) - 1;
+        int[] inserted = new int[sorted.length + 1];
+        System.arraycopy(sorted, 0, inserted, 0, index);
+        inserted[index] = id;
+        System.arraycopy(sorted, index, inserted, index + 1, sorted.length - index);
+        return inserted;
+    }
+
+    private static int[] ensureCapacity(int[] counts, int userId) {
+        return userId < counts.length ? counts : Arrays.copyOf(counts, Math.max(userId + 1, counts.length * 2));
+    }
+}
@@ -0,0 +1,49 @@
+package quackstagram.utilities;
+
+/**
+ * The fixed-size derivatives stored for every uploaded picture, see {@link FileHandler#getThumbnailPath}.
+ */
+public enum Thumbnail {
+    GRID("grid", 100, 100, false), // Explore and profile grids, a third of the window width, scaled
+    FEED("feed", 200, 150, true); // Home feed, the top-left corner of the picture
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final boolean cropped;
+
+    Thumbnail(String name, int width, int height, boolean cropped) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.cropped = cropped;
+    }
+
+    /**
+     * @return the name of the thumbnail, used in its file name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the width of the thumbnail, or its maximum width if it is cropped
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the height of the thumbnail, or its maximum height if it is cropped
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return {@code true} if the thumbnail is the top-left corner of the picture rather than the whole picture scaled
+     */
+    public boolean isCropped() {
+        return cropped;
+    }
+}
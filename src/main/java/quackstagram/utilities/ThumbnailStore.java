@@ -0,0 +1,123 @@
+package quackstagram.utilities;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import javax.imageio.ImageIO;
+
+import quackstagram.models.Picture;
+
+/**
+ * The {@code ThumbnailStore} class keeps the {@link Thumbnail} derivatives of the uploaded pictures in
+ * {@code img/thumbnails}, so the views can show a picture at grid or feed size without scaling the full-size
+ * upload every time they open.
+ * <p>
+ * Thumbnails are written when a picture is uploaded. A thumbnail that is missing, for example for pictures
+ * uploaded before thumbnails existed or whose thumbnail could not be written at upload, is derived from the
+ * upload the first time it is asked for. Thumbnails are decoded, scaled and written without a lock, so the
+ * image loader threads derive them in parallel: each write goes to a temporary file of its own and is moved
+ * into place in one step, so two threads deriving the same thumbnail at once both leave a complete file.
+ * </p>
+ */
+class ThumbnailStore {
+    private static final Path THUMBNAILS_DIR = Paths.get("img", "thumbnails");
+
+    /**
+     * Returns the path of a thumbnail of the given picture, whether or not it exists yet.
+     *
+     * @param pictureId the ID of the picture
+     * @param thumbnail the thumbnail size
+     * @return the path of the thumbnail file
+     */
+    static Path pathOf(String pictureId, Thumbnail thumbnail) {
+        return THUMBNAILS_DIR.resolve(pictureId + "_" + thumbnail.getName() + ".png");
+    }
+
+    /**
+     * Writes every thumbnail of a picture from its upload. A thumbnail that cannot be written is left to be
+     * derived when it is first asked for, so the upload itself never fails because of it.
+     *
+     * @param picture the picture
+     */
+    static void createAll(Picture picture) {
+        for (Thumbnail thumbnail : Thumbnail.values()) {
+            try {
+                create(picture, thumbnail);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Derives a thumbnail of a picture from its upload if the thumbnail does not exist yet.
+     *
+     * @param picture the picture
+     * @param thumbnail the thumbnail size
+     * @return {@code true} if the thumbnail exists afterwards
+     */
+    static boolean createIfMissing(Picture picture, Thumbnail thumbnail) {
+        if (Files.exists(pathOf(picture.getPictureID(), thumbnail))) {
+            return true;
+        }
+
+        try {
+            create(picture, thumbnail);
+            return true;
+        } catch (IOException e) {
+            return false; // Upload not found, reading error or unsupported format
+        }
+    }
+
+    /**
+     * Deletes every thumbnail of a picture.
+     *
+     * @param pictureId the ID of the picture
+     */
+    static void deleteAll(String pictureId) {
+        for (Thumbnail thumbnail : Thumbnail.values()) {
+            try {
+                Files.deleteIfExists(pathOf(pictureId, thumbnail));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void create(Picture picture, Thumbnail thumbnail) throws IOException {
+        // Only the pixels the thumbnail is derived from are decoded
+        BufferedImage image = thumbnail.isCropped()
+                ? ImageDecoder.readCorner(picture.getPath(), thumbnail.getWidth(), thumbnail.getHeight())
+                : ImageDecoder.readSubsampled(picture.getPath(), thumbnail.getWidth(), thumbnail.getHeight());
+        write(picture, thumbnail, image);
+    }
+
+    private static void write(Picture picture, Thumbnail thumbnail, BufferedImage image) throws IOException {
+        BufferedImage derived;
+        if (thumbnail.isCropped()) {
+            derived = new BufferedImage(Math.min(image.getWidth(), thumbnail.getWidth()),
+                    Math.min(image.getHeight(), thumbnail.getHeight()), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = derived.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+        } else {
+            derived = ImageScaler.scale(image, thumbnail.getWidth(), thumbnail.getHeight());
+        }
+
+        // Written under a unique temporary name first, so a half-written thumbnail is never read
+        Files.createDirectories(THUMBNAILS_DIR);
+        Path thumbnailFile = pathOf(picture.getPictureID(), thumbnail);
+        Path tmpFile = Files.createTempFile(THUMBNAILS_DIR, thumbnailFile.getFileName().toString(), ".tmp");
+        try {
+            ImageIO.write(derived, "png", tmpFile.toFile());
+            Files.move(tmpFile, thumbnailFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile); // Only left over if the thumbnail could not be written
+        }
+    }
+}
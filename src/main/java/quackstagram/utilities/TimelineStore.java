@@ -0,0 +1,201 @@
+package quackstagram.utilities;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+import quackstagram.models.Picture;
+import quackstagram.models.User;
+
+/**
+ * The {@code TimelineStore} class keeps a materialized home timeline per user, so the home feed can be
+ * opened with a single bounded read instead of collecting the pictures of every followed user.
+ * <p>
+ * Each timeline is a file in {@code data/timelines} holding one {@code "<pictureID>; <owner>"} line per
+ * picture, oldest first. Uploading a picture appends it to the timeline of every follower of its owner
+ * (fan-out on write). A timeline that does not exist yet, for example after following someone new,
+ * is built once from the pictures of the followed users.
+ * </p>
+ */
+class TimelineStore {
+    static final int TIMELINE_SIZE = 300; // pictures kept per timeline
+    private static final Path TIMELINES_DIR = Paths.get("data", "timelines");
+    private static final HashMap<String, Integer> entryCounts = new HashMap<>(); // entries of each known timeline
+
+    /**
+     * Reads the timeline of the given user, newest picture first, building it if it does not exist yet.
+     *
+     * @param user the user whose home timeline to read
+     * @return the timeline, holding at most {@link #TIMELINE_SIZE} pictures, newest first
+     */
+    static synchronized Timeline read(User user) {
+        Path timelineFile = timelineFile(user.getUsername());
+        if (!Files.exists(timelineFile)) {
+            build(user);
+        }
+
+        List<String> lines = new ArrayList<>();
+        try {
+            lines = Files.readAllLines(timelineFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        entryCounts.put(user.getUsername(), lines.size());
+
+        // A timeline is only cut to its newest entries once it holds TIMELINE_SIZE of them, so a shorter one
+        // still holds every picture of the followed users, even if deleted pictures make it read back shorter
+        ArrayList<Picture> pictures = new ArrayList<>();
+        DataRepository repository = DataRepository.getInstance();
+        for (int i = lines.size() - 1; i >= 0 && pictures.size() < TIMELINE_SIZE; i--) {
+            String[] entry = lines.get(i).split("; ");
+            if (entry.length != 2) {
+                continue;
+            }
+            // Pictures deleted since they were pushed are skipped
+            Picture picture = repository.getPicture(entry[1], entry[0]);
+            if (picture != null) {
+                pictures.add(picture);
+            }
+        }
+        return new Timeline(pictures, lines.size() >= TIMELINE_SIZE);
+    }
+
+    /**
+     * Pushes a newly uploaded picture onto the timeline of every follower of its owner.
+     *
+     * @param picture the picture that was uploaded
+     */
+    static synchronized void fanOut(Picture picture) {
+        for (User follower : DataRepository.getInstance().getFollowers(picture.getOwner())) {
+            append(follower.getUsername(), picture);
+        }
+    }
+
+    /**
+     * Drops the timeline of the given user, so that it is built again from the users they follow
+     * the next time it is read.
+     *
+     * @param username the user whose timeline is out of date
+     */
+    static synchronized void invalidate(String username) {
+        entryCounts.remove(username);
+        try {
+            Files.deleteIfExists(timelineFile(username));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void build(User user) {
+        List<Picture> pictures = new ArrayList<>();
+        DataRepository repository = DataRepository.getInstance();
+        for (String followedUser : user.getFollowingUsers()) {
+            pictures.addAll(repository.getPictures(followedUser));
+        }
+        pictures.sort(Picture.NEWEST_FIRST);
+        pictures = pictures.subList(0, Math.min(pictures.size(), TIMELINE_SIZE));
+
+        try {
+            Files.createDirectories(TIMELINES_DIR);
+            try (BufferedWriter writer = Files.newBufferedWriter(timelineFile(user.getUsername()))) {
+                for (int i = pictures.size() - 1; i >= 0; i--) {
+                    writer.write(entryOf(pictures.get(i)));
+                    writer.newLine();
+                }
+            }
+            entryCounts.put(user.getUsername(), pictures.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void append(String username, Picture picture) {
+        Path timelineFile = timelineFile(username);
+        if (!Files.exists(timelineFile)) {
+            // Built from scratch, including this picture, on the next read
+            return;
+        }
+
+        try {
+            Integer entries = entryCounts.get(username);
+            if (entries == null) {
+                entries = countEntries(timelineFile); // Once per timeline this application has not read
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(timelineFile, StandardOpenOption.APPEND)) {
+                writer.write(entryOf(picture));
+                writer.newLine();
+            }
+            entryCounts.put(username, entries + 1);
+            if (entries + 1 >= 2 * TIMELINE_SIZE) {
+                trim(username, timelineFile);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Keeps only the newest {@link #TIMELINE_SIZE} entries once a timeline has grown to twice that size,
+     * so appends stay cheap and reads stay bounded. The entries are counted as they are appended, so the
+     * timeline is only read again when it is trimmed.
+     */
+    private static void trim(String username, Path timelineFile) throws IOException {
+        List<String> lines = Files.readAllLines(timelineFile);
+        if (lines.size() > TIMELINE_SIZE) {
+            Files.write(timelineFile, lines.subList(lines.size() - TIMELINE_SIZE, lines.size()));
+        }
+        entryCounts.put(username, Math.min(lines.size(), TIMELINE_SIZE));
+    }
+
+    private static int countEntries(Path timelineFile) throws IOException {
+        try (Stream<String> lines = Files.lines(timelineFile)) {
+            return (int) lines.count();
+        }
+    }
+
+    /**
+     * The pictures read from a timeline, and whether older pictures of the followed users were left out of it.
+     */
+    static class Timeline {
+        private final ArrayList<Picture> pictures;
+        private final boolean truncated;
+
+        Timeline(ArrayList<Picture> pictures, boolean truncated) {
+            this.pictures = pictures;
+            this.truncated = truncated;
+        }
+
+        /**
+         * Returns the pictures of the timeline.
+         *
+         * @return at most {@link #TIMELINE_SIZE} pictures, newest first
+         */
+        ArrayList<Picture> getPictures() {
+            return pictures;
+        }
+
+        /**
+         * Returns whether the followed users may have older pictures than the last one of the timeline.
+         *
+         * @return {@code false} if the timeline holds the complete feed
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    private static String entryOf(Picture picture) {
+        return picture.getPictureID() + "; " + picture.getOwner();
+    }
+
+    private static Path timelineFile(String username) {
+        return TIMELINES_DIR.resolve(username + ".txt");
+    }
+}
@@ -0,0 +1,105 @@
+package quackstagram.views;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The {@code ImageCache} class keeps the most recently used decoded images in memory, so opening the same view
+ * again does not decode its images again. Images are keyed by their file, target size and fit, and the least
+ * recently used ones are evicted once the images held take more than the byte budget, counted as
+ * width × height × 4 bytes per image.
+ * <p>
+ * The budget defaults to {@link #DEFAULT_BUDGET_BYTES} and can be set with the
+ * {@code quackstagram.imageCacheBytes} system property.
+ * </p>
+ */
+class ImageCache {
+    static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Key, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true); // LRU order
+    private long usedBytes = 0;
+
+    /**
+     * Constructs a cache with the budget from the {@code quackstagram.imageCacheBytes} system property.
+     */
+    ImageCache() {
+        this(Long.getLong("quackstagram.imageCacheBytes", DEFAULT_BUDGET_BYTES));
+    }
+
+    /**
+     * Constructs a cache with the given budget.
+     *
+     * @param budgetBytes The number of bytes the cached images may take.
+     */
+    ImageCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the cached image for the given file, size and fit, marking it as the most recently used.
+     *
+     * @return The image, or {@code null} if it is not cached.
+     */
+    synchronized BufferedImage get(String path, int width, int height, ImageLoader.Fit fit) {
+        return images.get(new Key(path, width, height, fit));
+    }
+
+    /**
+     * Caches an image, evicting the least recently used images until the cache fits its budget again.
+     * An image larger than the whole budget is not cached.
+     */
+    synchronized void put(String path, int width, int height, ImageLoader.Fit fit, BufferedImage image) {
+        long size = sizeOf(image);
+        if (size > budgetBytes) {
+            return;
+        }
+
+        BufferedImage previous = images.put(new Key(path, width, height, fit), image);
+        if (previous != null) {
+            usedBytes -= sizeOf(previous);
+        }
+        usedBytes += size;
+
+        Iterator<Map.Entry<Key, BufferedImage>> eldest = images.entrySet().iterator();
+        while (usedBytes > budgetBytes && eldest.hasNext()) {
+            usedBytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static final class Key {
+        private final String path;
+        private final int width;
+        private final int height;
+        private final ImageLoader.Fit fit;
+
+        Key(String path, int width, int height, ImageLoader.Fit fit) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.fit = fit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return path.equals(other.path) && width == other.width && height == other.height && fit == other.fit;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height, fit);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package quackstagram.views;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+import quackstagram.models.Picture;
+import quackstagram.utilities.FileHandler;
+import quackstagram.utilities.ImageDecoder;
+import quackstagram.utilities.ImageScaler;
+import quackstagram.utilities.Thumbnail;
+
+/**
+ * The {@code ImageLoader} class implements a singleton pattern to decode images off the Event Dispatch Thread.
+ * Images are read by a small, fixed pool of background workers, and the resulting icons are handed back on the
+ * Event Dispatch Thread, so a slow disk read never freezes the window. Views show a placeholder in the meantime
+ * and can cancel the requests of images that are no longer in view.
+ * Decoded images are kept in a shared {@link ImageCache}, so views opened again are served without decoding.
+ */
+public class ImageLoader {
+    private static ImageLoader imageLoader = null;
+    private static final int WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final ImageCache cache = new ImageCache();
+    private final ExecutorService workers = Executors.newFixedThreadPool(WORKERS, runnable -> {
+        Thread worker = new Thread(runnable, "image-loader");
+        worker.setDaemon(true); // Pending decodes must not keep the application alive
+        return worker;
+    });
+
+    /**
+     * How a decoded image is fitted to the requested size.
+     */
+    public enum Fit {
+        ORIGINAL, // The image as it is, the requested size is ignored
+        CROP, // The top-left corner of the image, at most the requested size
+        SCALE // The whole image, scaled to exactly the requested size
+    }
+
+    private ImageLoader() {
+    }
+
+    /**
+     * Returns the single instance of the {@code ImageLoader} class, creating it if it does not exist.
+     *
+     * @return The single instance of the {@code ImageLoader} class.
+     */
+    public static synchronized ImageLoader getInstance() {
+        if (imageLoader == null) {
+            imageLoader = new ImageLoader();
+        }
+        return imageLoader;
+    }
+
+    /**
+     * Decodes an image in the background and passes it to {@code onLoaded} on the Event Dispatch Thread.
+     * {@code onLoaded} receives {@code null} if the image could not be read, and is not called at all
+     * if the request is cancelled first. Images found in the cache are passed on without being decoded.
+     *
+     * @param path     The path of the image file.
+     * @param width    The width to fit the image to.
+     * @param height   The height to fit the image to.
+     * @param fit      How the image is fitted to the size.
+     * @param onLoaded Receives the decoded image on the Event Dispatch Thread.
+     * @return The pending request, which can be cancelled with {@link Future#cancel(boolean)}.
+     */
+    public Future<Icon> load(String path, int width, int height, Fit fit, Consumer<Icon> onLoaded) {
+        if (fit == Fit.ORIGINAL) {
+            // The size does not matter, so all requests share one cache entry
+            width = 0;
+            height = 0;
+        }
+        int targetWidth = width;
+        int targetHeight = height;
+        return submit(path, width, height, fit, () -> decode(path, targetWidth, targetHeight, fit), onLoaded);
+    }
+
+    /**
+     * Loads a {@link Thumbnail} of an uploaded picture in the background, like {@link #load}, reading the stored
+     * thumbnail file instead of scaling the full-size upload. A missing thumbnail is derived from the upload first.
+     *
+     * @param picture   The uploaded picture.
+     * @param thumbnail The thumbnail size.
+     * @param onLoaded  Receives the thumbnail on the Event Dispatch Thread.
+     * @return The pending request, which can be cancelled with {@link Future#cancel(boolean)}.
+     */
+    public Future<Icon> loadThumbnail(Picture picture, Thumbnail thumbnail, Consumer<Icon> onLoaded) {
+        int width = thumbnail.getWidth();
+        int height = thumbnail.getHeight();
+        Fit fit = thumbnail.isCropped() ? Fit.CROP : Fit.SCALE;
+        // Cached as the same image fitted from the upload, so both ways of loading it share one entry
+        return submit(picture.getPath(), width, height, fit, () -> {
+            String thumbnailPath = FileHandler.getThumbnailPath(picture, thumbnail);
+            if (thumbnailPath.equals(picture.getPath())) {
+                return decode(thumbnailPath, width, height, fit); // No thumbnail could be derived
+            }
+            return decode(thumbnailPath, width, height, Fit.ORIGINAL);
+        }, onLoaded);
+    }
+
+    private Future<Icon> submit(String path, int width, int height, Fit fit, Supplier<BufferedImage> decoder,
+            Consumer<Icon> onLoaded) {
+        FutureTask<Icon> request = new FutureTask<>(() -> getImage(path, width, height, fit, decoder)) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                Icon icon = null;
+                try {
+                    icon = get(); // Already completed, does not block
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+                Icon loaded = icon;
+                SwingUtilities.invokeLater(() -> {
+                    if (!isCancelled()) {
+                        onLoaded.accept(loaded);
+                    }
+                });
+            }
+        };
+        if (cache.get(path, width, height, fit) != null) {
+            request.run(); // Nothing to decode, only the hand-over to the Event Dispatch Thread is left
+        } else {
+            workers.execute(request);
+        }
+        return request;
+    }
+
+    /**
+     * Returns an icon of the given size that only paints a flat background, shown while an image is loading.
+     *
+     * @param width  The width of the placeholder.
+     * @param height The height of the placeholder.
+     * @return The placeholder icon.
+     */
+    public static Icon placeholder(int width, int height) {
+        Color color = Theme.getInstance().getColor(ColorID.MINOR_BACKGROUND);
+        return new Icon() {
+            @Override
+            public void paintIcon(Component c, Graphics g, int x, int y) {
+                g.setColor(color);
+                g.fillRect(x, y, width, height);
+            }
+
+            @Override
+            public int getIconWidth() {
+                return width;
+            }
+
+            @Override
+            public int getIconHeight() {
+                return height;
+            }
+        };
+    }
+
+    private Icon getImage(String path, int width, int height, Fit fit, Supplier<BufferedImage> decoder) {
+        BufferedImage image = cache.get(path, width, height, fit);
+        if (image == null) {
+            image = decoder.get();
+            if (image == null) {
+                return null;
+            }
+            cache.put(path, width, height, fit, image);
+        }
+        return new ImageIcon(image);
+    }
+
+    private static BufferedImage decode(String path, int width, int height, Fit fit) {
+        try {
+            if (fit == Fit.CROP) {
+                // Only the corner is decoded, and the cache holds no more than the pixels that are shown
+                return ImageDecoder.readCorner(path, width, height);
+            } else if (fit == Fit.SCALE) {
+                return ImageScaler.read(path, width, height);
+            }
+            return ImageIO.read(new File(path)); // null for an unsupported format
+        } catch (IOException e) {
+            return null; // Image file not found, reading error or unsupported format
+        }
+    }
+}
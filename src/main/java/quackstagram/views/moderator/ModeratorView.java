@@ -5,9 +5,9 @@ import java.awt.*;
 import java.io.IOException;
 import java.util.List;
 import java.util.function.Consumer;
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.File;
+
+import quackstagram.utilities.ImageScaler;
 
 /**
  * Provides a visual interface for moderators to manage users' data in the Quackstagram application.
@@ -145,8 +145,8 @@ public class ModeratorView extends JFrame {
             String pictureID = parts[1].split(" - ")[0];
             String filePath = "img/uploaded/" + pictureID + ".png";
             try {
-                BufferedImage image = ImageIO.read(new File(filePath));
-                ImageIcon imageIcon = new ImageIcon(image.getScaledInstance(imagePreview.getWidth(), imagePreview.getHeight(), Image.SCALE_SMOOTH));
+                BufferedImage image = ImageScaler.read(filePath, imagePreview.getWidth(), imagePreview.getHeight());
+                ImageIcon imageIcon = new ImageIcon(image);
                 imagePreview.setIcon(imageIcon);
             } catch (IOException e) {
                 e.printStackTrace();
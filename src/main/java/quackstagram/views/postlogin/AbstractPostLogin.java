@@ -1,7 +1,7 @@
 package quackstagram.views.postlogin;
 
 import java.awt.Color;
-import java.awt.Image;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,6 +14,7 @@ import javax.swing.JComponent;
 import javax.swing.JPanel;
 
 import quackstagram.models.User;
+import quackstagram.utilities.ImageScaler;
 import quackstagram.views.BaseFrameManager;
 import quackstagram.views.ColorID;
 import quackstagram.views.IconID;
@@ -104,9 +105,12 @@ public abstract class AbstractPostLogin extends BaseFrameManager {
      * @return A JButton with the specified icon and action.
      */
     private JButton createIconButton(String iconPath, String buttonType) {
-        ImageIcon iconOriginal = new ImageIcon(iconPath);
-        Image iconScaled = iconOriginal.getImage().getScaledInstance(NAV_ICON_SIZE, NAV_ICON_SIZE, Image.SCALE_SMOOTH);
-        JButton button = new JButton(new ImageIcon(iconScaled));
+        JButton button = new JButton();
+        try {
+            button.setIcon(new ImageIcon(ImageScaler.read(iconPath, NAV_ICON_SIZE, NAV_ICON_SIZE)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         button.setBorder(BorderFactory.createEmptyBorder());
         button.setContentAreaFilled(false);
 
@@ -4,19 +4,13 @@ import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 
-import javax.imageio.ImageIO;
 import javax.swing.BoxLayout;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -26,10 +20,12 @@ import javax.swing.JTextArea;
 import javax.swing.JTextField;
 
 import quackstagram.utilities.FileHandler;
+import quackstagram.utilities.Thumbnail;
 import quackstagram.controllers.postlogin.ExploreController;
 import quackstagram.models.Picture;
 import quackstagram.models.User;
 import quackstagram.views.ColorID;
+import quackstagram.views.ImageLoader;
 import quackstagram.views.postlogin.commands.OpenExploreUICommand;
 
 /**
@@ -38,7 +34,7 @@ import quackstagram.views.postlogin.commands.OpenExploreUICommand;
  */
 public class ExploreUI extends AbstractPostLogin {
     private final int WIDTH = AbstractPostLogin.WIDTH;
-    static final int IMAGE_SIZE = 100;
+    static final int IMAGE_SIZE = Thumbnail.GRID.getWidth(); // Size of the grid thumbnails
     private ExploreController controller;
 
     /**
@@ -91,12 +87,10 @@ public class ExploreUI extends AbstractPostLogin {
      * @param imageGridPanel The JPanel into which images will be loaded.
      */
     public void loadImages(JPanel imageGridPanel) {
-        // Load images from the uploaded folder
+        // Load the grid thumbnails of the uploaded pictures
         for (Picture picture : FileHandler.getUserPictures(null)) {
-            ImageIcon imageIcon = new ImageIcon(new ImageIcon(picture.getPath()).getImage()
-                    .getScaledInstance(IMAGE_SIZE, IMAGE_SIZE, Image.SCALE_SMOOTH));
-
-            JLabel imageLabel = new JLabel(imageIcon);
+            JLabel imageLabel = new JLabel(ImageLoader.placeholder(IMAGE_SIZE, IMAGE_SIZE));
+            ImageLoader.getInstance().loadThumbnail(picture, Thumbnail.GRID, imageLabel::setIcon);
             imageLabel.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
@@ -155,7 +149,7 @@ public class ExploreUI extends AbstractPostLogin {
     }
 
     /**
-     * Creates and returns a JLabel containing the image of a picture.
+     * Creates and returns a JLabel containing the image of a picture, which is filled in once the image is decoded.
      *
      * @param picture The picture for which the JLabel is created.
      * @return A JLabel containing the picture's image.
@@ -163,13 +157,13 @@ public class ExploreUI extends AbstractPostLogin {
     private JLabel getImageLabel(Picture picture) {
         JLabel imageLabel = new JLabel();
         imageLabel.setHorizontalAlignment(JLabel.CENTER);
-        try {
-            BufferedImage originalImage = ImageIO.read(new File(picture.getPath()));
-            ImageIcon imageIcon = new ImageIcon(originalImage);
+        // Decoded in the background, the label stays empty until the image is ready
+        ImageLoader.getInstance().load(picture.getPath(), 0, 0, ImageLoader.Fit.ORIGINAL, imageIcon -> {
             imageLabel.setIcon(imageIcon);
-        } catch (IOException ex) {
-            imageLabel.setText("Image not found");
-        }
+            if (imageIcon == null) {
+                imageLabel.setText("Image not found");
+            }
+        });
         imageLabel.setBackground(getColor(ColorID.MAIN_BACKGROUND));
 
         return imageLabel;
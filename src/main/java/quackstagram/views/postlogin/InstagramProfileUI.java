@@ -2,12 +2,11 @@ package quackstagram.views.postlogin;
 
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
-import java.awt.Image;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.List;
 
-import javax.swing.ImageIcon;
+import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
@@ -15,10 +14,12 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 
 import quackstagram.utilities.FileHandler;
+import quackstagram.utilities.Thumbnail;
 import quackstagram.controllers.postlogin.InstagramProfileController;
 import quackstagram.models.Picture;
 import quackstagram.models.User;
 import quackstagram.views.ColorID;
+import quackstagram.views.ImageLoader;
 import quackstagram.views.postlogin.components.InstagramUIComponents;
 
 /**
@@ -27,7 +28,7 @@ import quackstagram.views.postlogin.components.InstagramUIComponents;
  * to view it in full size, with an option to navigate back to the grid view.
  */
 public class InstagramProfileUI extends AbstractPostLogin {
-    private static final int GRID_IMAGE_SIZE = WIDTH / 3; // Static size for grid images
+    private static final int GRID_IMAGE_SIZE = Thumbnail.GRID.getWidth(); // Static size for grid images
     private InstagramUIComponents uiComponents;
     private JPanel contentPanel; // Panel to display the image grid or the clicked image
     private User targetUser;
@@ -71,9 +72,7 @@ public class InstagramProfileUI extends AbstractPostLogin {
         contentPanel.setLayout(new GridLayout(0, 3, 5, 5)); // Grid layout for image grid
 
         for (Picture picture : FileHandler.getUserPictures(targetUser.getUsername())) {
-            ImageIcon imageIcon = new ImageIcon(new ImageIcon(picture.getPath()).getImage()
-                    .getScaledInstance(GRID_IMAGE_SIZE, GRID_IMAGE_SIZE, Image.SCALE_SMOOTH));
-            contentPanel.add(createImageLabel(imageIcon));
+            contentPanel.add(createImageLabel(picture));
         }
 
         JScrollPane scrollPane = new JScrollPane(contentPanel);
@@ -95,17 +94,19 @@ public class InstagramProfileUI extends AbstractPostLogin {
     }
 
     /**
-     * Creates and returns a JLabel containing an image icon, with added mouse click event to view the image in full size.
+     * Creates and returns a JLabel containing the grid image of a picture, with added mouse click event to view
+     * the image in full size. The label shows a placeholder until the image is loaded.
      *
-     * @param imageIcon The ImageIcon to display.
-     * @return A JLabel containing the given ImageIcon.
+     * @param picture The picture to display.
+     * @return A JLabel containing the picture's grid image.
      */
-    private JLabel createImageLabel(ImageIcon imageIcon) {
-        JLabel imageLabel = new JLabel(imageIcon);
+    private JLabel createImageLabel(Picture picture) {
+        JLabel imageLabel = new JLabel(ImageLoader.placeholder(GRID_IMAGE_SIZE, GRID_IMAGE_SIZE));
+        ImageLoader.getInstance().loadThumbnail(picture, Thumbnail.GRID, imageLabel::setIcon);
         imageLabel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                displayImage(imageIcon); // Call method to display the clicked image
+                displayImage(imageLabel.getIcon()); // Call method to display the clicked image
             }
         });
         return imageLabel;
@@ -114,9 +115,9 @@ public class InstagramProfileUI extends AbstractPostLogin {
     /**
      * Displays the clicked image in full size, replacing the image grid with a single large image view and a back button.
      *
-     * @param imageIcon The ImageIcon of the clicked image to display.
+     * @param imageIcon The icon of the clicked image to display.
      */
-    private void displayImage(ImageIcon imageIcon) {
+    private void displayImage(Icon imageIcon) {
         contentPanel.removeAll(); // Remove existing content
         contentPanel.setLayout(new BorderLayout()); // Change layout for image display
 
@@ -1,6 +1,9 @@
 package quackstagram.views.postlogin;
 
 import java.awt.BorderLayout;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -8,9 +11,12 @@ import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 
 import quackstagram.utilities.FileHandler;
+import quackstagram.models.EventBus;
 import quackstagram.models.Notification;
+import quackstagram.models.Observer;
 import quackstagram.models.User;
 import quackstagram.views.ColorID;
 
@@ -18,19 +24,23 @@ import quackstagram.views.ColorID;
  * The {@code NotificationsUI} class extends {@code AbstractPostLogin} to provide a user interface
  * for displaying notifications to the user. It shows all the notifications related to the user's
  * activities and interactions within the Quackstagram app, such as likes and follows.
+ * While it is displayed, it observes the {@link EventBus} and shows the notifications saved by its subscribers.
  */
-public class NotificationsUI extends AbstractPostLogin {
-    private JComponent contentPanel;
+public class NotificationsUI extends AbstractPostLogin implements Observer {
+    private JComponent contentPanel; // The displayed panel the notification panels are added to
+    // Set by createMainContentPanel, which the superclass constructor calls before field initializers would run
+    private long shownSequence; // Sequence number of the newest notification shown
+    private Map<Notification, JPanel> shownPanels;
 
     /**
      * Constructs a {@code NotificationsUI} object for the specified user, initializing
      * the user interface components including a panel for displaying notifications.
+     * The panel is created once, by {@code initializeUI}, and every later update adds to it.
      *
      * @param currentUser The current user for whom notifications will be displayed.
      */
     public NotificationsUI(User currentUser) {
         super("Notifications", currentUser);
-        this.contentPanel = createMainContentPanel();
     }
 
     /**
@@ -45,6 +55,8 @@ public class NotificationsUI extends AbstractPostLogin {
     protected JComponent createMainContentPanel() {
         // Content Panel for notifications
         contentPanel = new JPanel();
+        shownSequence = 0;
+        shownPanels = new IdentityHashMap<>();
         contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS));
         JScrollPane scrollPane = new JScrollPane(contentPanel);
         scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
@@ -58,30 +70,62 @@ public class NotificationsUI extends AbstractPostLogin {
     }
 
     /**
-     * Updates the notifications panel with the latest notifications for the current
-     * user.
-     * Removes all existing notifications from the panel and adds new notifications
-     * retrieved from the file handler.
-     * Each notification is displayed as a label within a panel.
+     * Starts observing the event bus once the frame is displayable.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        EventBus.getInstance().addObserver(this);
+    }
+
+    /**
+     * Stops observing the event bus once the frame is disposed of.
+     */
+    @Override
+    public void removeNotify() {
+        EventBus.getInstance().removeObserver(this);
+        super.removeNotify();
+    }
+
+    /**
+     * Called on the thread of the event bus after it has handled an event. The notifications are updated
+     * on the event dispatch thread.
+     */
+    @Override
+    public void update() {
+        SwingUtilities.invokeLater(this::updateNotifications);
+    }
+
+    /**
+     * Updates the notifications panel with the notifications the current user received since the last update.
+     * Only the panels of the new notifications are created, and they are prepended to the panels already shown,
+     * so an update costs as much as the number of new notifications rather than the whole history.
+     * A rollup that received more likes is moved to the top, replacing its previous panel. A rollup the other
+     * application saved, or that was read again from the data file, is a new object: its previous panel is found
+     * among the shown ones by the rollup's identity.
      * The content panel is then revalidated and repainted to reflect the changes.
      * 
-     * Gets updated by the Observer pattern when a new notification is added.
+     * Gets updated by the Observer pattern when the event bus has handled an event, see {@link #update()}.
      */
     public void updateNotifications() {
-        contentPanel.removeAll();
-
-        for (Notification notification : FileHandler.getNotifications(getCurrentUser().getUsername())) {
-            // Add the notification to the panel
-            JPanel notificationPanel = new JPanel(new BorderLayout());
-            notificationPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
-            notificationPanel.setOpaque(false);  // Make the notification panels non-opaque
-            notificationPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND));
+        String username = getCurrentUser().getUsername();
+        long sequence = FileHandler.getNotificationSequence(username);
+        List<Notification> received = FileHandler.getNotifications(username, shownSequence, sequence);
+        shownSequence = sequence;
 
-            JLabel notificationLabel = new JLabel(notification.getMessage());
-            notificationLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
-            notificationPanel.add(notificationLabel, BorderLayout.CENTER);
-
-            contentPanel.add(notificationPanel);
+        // Newest first, so they are prepended from the oldest on to end up in the same order
+        for (int i = received.size() - 1; i >= 0; i--) {
+            Notification notification = received.get(i);
+            JPanel previousPanel = shownPanels.remove(notification);
+            if (previousPanel == null) {
+                previousPanel = removeShownCopy(notification);
+            }
+            if (previousPanel != null) {
+                contentPanel.remove(previousPanel);
+            }
+            JPanel notificationPanel = createNotificationPanel(notification);
+            shownPanels.put(notification, notificationPanel);
+            contentPanel.add(notificationPanel, 0);
         }
 
         contentPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND));
@@ -89,4 +133,31 @@ public class NotificationsUI extends AbstractPostLogin {
         contentPanel.revalidate();
         contentPanel.repaint();
     }
+
+    /**
+     * Removes the shown panel of another copy of the same rollup, if there is one.
+     */
+    private JPanel removeShownCopy(Notification notification) {
+        for (Notification shown : shownPanels.keySet()) {
+            if (shown.isIdEqualTo(notification)) {
+                return shownPanels.remove(shown);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the panel showing a single notification as a label.
+     */
+    private JPanel createNotificationPanel(Notification notification) {
+        JPanel notificationPanel = new JPanel(new BorderLayout());
+        notificationPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        notificationPanel.setOpaque(false);  // Make the notification panels non-opaque
+        notificationPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND));
+
+        JLabel notificationLabel = new JLabel(notification.getMessage());
+        notificationLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
+        notificationPanel.add(notificationLabel, BorderLayout.CENTER);
+        return notificationPanel;
+    }
 }
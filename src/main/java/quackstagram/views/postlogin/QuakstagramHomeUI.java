@@ -2,71 +2,87 @@ package quackstagram.views.postlogin;
 
 import java.awt.BorderLayout;
 import java.awt.CardLayout;
-import java.awt.Color;
 import java.awt.Component;
-import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Future;
 
-import javax.imageio.ImageIO;
-import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
-import javax.swing.ImageIcon;
+import javax.swing.DefaultListModel;
+import javax.swing.DefaultListSelectionModel;
+import javax.swing.Icon;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 
-import quackstagram.utilities.FileHandler;
 import quackstagram.controllers.postlogin.QuakstagramHomeController;
+import quackstagram.utilities.FeedService;
+import quackstagram.utilities.Thumbnail;
 import quackstagram.models.Picture;
 import quackstagram.models.User;
 import quackstagram.views.ColorID;
+import quackstagram.views.ImageLoader;
+import quackstagram.views.postlogin.components.FeedCellRenderer;
 
 /**
  * Represents the home screen of the Quakstagram application,
  * displaying a feed of image posts that users can interact with by liking
- * or viewing in more detail. The UI supports navigation to other parts
- * of the application like search, profile, and notifications.
+ * or viewing in more detail. The feed is fetched one page at a time, as the
+ * user scrolls near its bottom, and is shown in a virtualized list that only
+ * renders and decodes the images of the posts in view. The UI supports navigation
+ * to other parts of the application like search, profile, and notifications.
  */
 public class QuakstagramHomeUI extends AbstractPostLogin {
 
     private AbstractPostLogin ui;
-    private NotificationsUI notificationsUI; // Add this line to declare the NotificationsUI instance
-    private static final int IMAGE_WIDTH = WIDTH - 100; // Width for the image posts
-    private static final int IMAGE_HEIGHT = 150; // Height for the image posts
+    private static final int IMAGE_WIDTH = Thumbnail.FEED.getWidth(); // Width for the image posts
+    private static final int IMAGE_HEIGHT = Thumbnail.FEED.getHeight(); // Height for the image posts
+    private static final int LOAD_MORE_THRESHOLD = 200; // Distance in pixels from the bottom that loads the next page
+    private static final int OVERSCAN = 2; // Posts above and below the viewport whose images stay decoded
     private CardLayout cardLayout;
     private JPanel cardPanel;
     private JPanel homePanel;
     private JPanel imageViewPanel;
     private QuakstagramHomeController controller;
+    private DefaultListModel<Picture> feedModel;
+    private JList<Picture> feedList;
+    private FeedCellRenderer feedRenderer;
+    private HashMap<String, Icon> decodedImages; // Images of the posts in view and in the overscan, by picture ID
+    private HashMap<String, Future<Icon>> pendingImages; // Decodes requested for posts in view, by picture ID
+    private Icon feedPlaceholder; // Shown in place of an image until it is decoded
+    private Future<Icon> pendingFullSizeImage; // Decode of the image shown in the image view
+    private Picture lastShownPicture; // Cursor of the feed, the last picture added to the feed list
+    private boolean feedExhausted;
+    private boolean pageLoadPending;
 
     /**
-     * Constructs a {@code QuakstagramHomeUI} object with the specified current user and notifications UI.
+     * Constructs a {@code QuakstagramHomeUI} object with the specified current user.
      * Initializes the home interface, setting up the layout, content panels, and controller.
      *
      * @param currentUser     The user currently logged in and viewing the home screen.
-     * @param notificationsUI The notifications UI to display updates and interactions.
      */
-    public QuakstagramHomeUI(User currentUser, NotificationsUI notificationsUI) {
+    public QuakstagramHomeUI(User currentUser) {
         super("Quakstagram Home", currentUser);
-        this.notificationsUI = notificationsUI; // Store the NotificationsUI instance in a field
         this.controller = new QuakstagramHomeController(this, currentUser);
+        loadNextPage();
     }
 
     /**
      * Creates and returns the main content panel for the home screen, comprising a dynamic feed
-     * of image posts from followed users. This method initializes the panel layout, content scrolling,
-     * and populates the feed with posts.
+     * of image posts from followed users. This method initializes the feed list, content scrolling,
+     * and loads the next page of posts whenever the user scrolls near the bottom of the feed.
      *
      * @return A {@code JComponent} containing the main content for the home screen.
      */
@@ -78,24 +94,47 @@ public class QuakstagramHomeUI extends AbstractPostLogin {
         homePanel = new JPanel(new BorderLayout());
         imageViewPanel = new JPanel(new BorderLayout());
 
-        JPanel contentPanel = new JPanel();
-        contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS)); // Vertical box layout
-        JScrollPane scrollPane = new JScrollPane(contentPanel);
+        decodedImages = new HashMap<>();
+        pendingImages = new HashMap<>();
+        feedPlaceholder = ImageLoader.placeholder(IMAGE_WIDTH, IMAGE_HEIGHT);
+        feedModel = new DefaultListModel<>();
+        feedList = new JList<>(feedModel);
+        feedRenderer = new FeedCellRenderer(IMAGE_WIDTH, IMAGE_HEIGHT, this::getFeedImage,
+                currentUser.getUsername());
+        feedList.setCellRenderer(feedRenderer);
+        // All posts have the same height, so the list never has to render off-screen posts to lay itself out
+        feedList.setFixedCellHeight(feedRenderer.getPreferredSize().height);
+        feedList.setSelectionModel(new DefaultListSelectionModel() {
+            @Override
+            public void setSelectionInterval(int index0, int index1) {
+                // Posts are not selectable
+            }
+        });
+        feedList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                handleFeedClick(e);
+            }
+        });
+
+        JScrollPane scrollPane = new JScrollPane(feedList);
         scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
-        ArrayList<Picture> picturesToShow = getPicturesToShow();
-        populateContentPanel(contentPanel, picturesToShow);
+        JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+        scrollBar.addAdjustmentListener(e -> {
+            releaseImagesOutOfView();
+            loadNextPageIfNearBottom(scrollBar);
+        });
         add(scrollPane, BorderLayout.CENTER);
 
         // Set up the home panel
-        contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS));
         homePanel.add(scrollPane, BorderLayout.CENTER);
 
         cardPanel.add(homePanel, "Home");
         cardPanel.add(imageViewPanel, "ImageView");
         cardLayout.show(cardPanel, "Home");
 
-        contentPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND));
-        contentPanel.setBorder(null);
+        feedList.setBackground(getColor(ColorID.MAIN_BACKGROUND));
+        feedList.setBorder(null);
 
         return cardPanel;
     }
@@ -106,121 +145,124 @@ public class QuakstagramHomeUI extends AbstractPostLogin {
     }
 
     /**
-     * Fetches the pictures to be shown on the home screen, based on the current user's followings.
-     * This method retrieves pictures from followed users for inclusion in the home feed.
-     *
-     * @return An {@code ArrayList<Picture>} containing the pictures to be displayed.
+     * Fetches the next page of the feed and appends its posts to the feed list.
+     * Does nothing once the whole feed has been shown.
      */
-    private ArrayList<Picture> getPicturesToShow() {
-        ArrayList<Picture> picturesToShow = new ArrayList<Picture>();
-        ArrayList<String> users = currentUser.getFollowingUsers();
-        for (String user : users) {
-            picturesToShow.addAll(FileHandler.getUserPictures(user));
+    private void loadNextPage() {
+        if (feedExhausted) {
+            return;
         }
 
-        return picturesToShow;
+        List<Picture> page = controller.getFeedPage(lastShownPicture);
+        feedExhausted = page.size() < FeedService.PAGE_SIZE;
+        if (page.isEmpty()) {
+            return;
+        }
+
+        lastShownPicture = page.get(page.size() - 1);
+        for (Picture picture : page) {
+            feedModel.addElement(picture);
+        }
     }
 
     /**
-     * Populates the provided content panel with image post items based on the given list of pictures.
-     * Each post item includes an image, caption, like count, and a like button. The method configures
-     * interaction listeners and visual elements for each post.
+     * Schedules loading the next page once the visible part of the feed is within
+     * {@code LOAD_MORE_THRESHOLD} pixels of its bottom, including when the feed is shorter than the viewport.
      *
-     * @param panel    The panel to populate with image post items.
-     * @param pictures The list of {@code Picture} objects to create post items for.
+     * @param scrollBar The vertical scroll bar of the feed.
      */
-    private void populateContentPanel(JPanel panel, ArrayList<Picture> pictures) {
-
-        for (Picture picture : pictures) {
-            JPanel itemPanel = getItemPanel();
-
-            JLabel nameLabel = getNameLabel(picture.getOwner());
-            JLabel imageLabel = getImageLabel(picture.getPath());
-            JLabel captionLabel = getCaptionLabel(picture.getCaption());
-            JLabel likesLabel = getLikesLabel(picture.getLikesCount());
-            JButton likeButton = getLikeButton(picture, likesLabel);
-            JPanel spacingPanel = getSpacingPanel();
-
-            nameLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
-            imageLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
-            captionLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
-            likesLabel.setForeground(getColor(ColorID.TEXT_PRIMARY));
-
-            itemPanel.add(nameLabel);
-            itemPanel.add(imageLabel);
-            itemPanel.add(captionLabel);
-            itemPanel.add(likesLabel);
-            itemPanel.add(likeButton);
-
-            panel.add(itemPanel);
-            panel.add(spacingPanel);
-
-            // Make the image clickable
-            imageLabel.addMouseListener(new MouseAdapter() {
-                @Override
-                public void mouseClicked(MouseEvent e) {
-                    displayImage(picture); // Call a method to switch to the image view
-                }
+    private void loadNextPageIfNearBottom(JScrollBar scrollBar) {
+        boolean nearBottom = scrollBar.getValue() + scrollBar.getVisibleAmount()
+                >= scrollBar.getMaximum() - LOAD_MORE_THRESHOLD;
+        if (nearBottom && !feedExhausted && !pageLoadPending && controller != null) {
+            pageLoadPending = true;
+            SwingUtilities.invokeLater(() -> {
+                pageLoadPending = false;
+                loadNextPage();
             });
         }
     }
 
-    private JPanel getItemPanel() {
-        JPanel itemPanel = new JPanel();
-        itemPanel.setLayout(new BoxLayout(itemPanel, BoxLayout.Y_AXIS));
-        itemPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND)); // Set the background color for the item panel
-        itemPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-        itemPanel.setAlignmentX(CENTER_ALIGNMENT);
-        return itemPanel;
-    }
-
-    private JLabel getNameLabel(String owner) {
-        JLabel nameLabel = new JLabel(owner);
-        nameLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        return nameLabel;
-    }
-
-    private JLabel getCaptionLabel(String caption) {
-        JLabel captionLabel = new JLabel(caption);
-        captionLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+    /**
+     * Routes a click on the feed list to the post under the mouse: a click on the image opens the
+     * image view, a click on the like button likes the picture.
+     *
+     * @param e The mouse event on the feed list.
+     */
+    private void handleFeedClick(MouseEvent e) {
+        int index = feedList.locationToIndex(e.getPoint());
+        if (index < 0) {
+            return;
+        }
+        Rectangle cellBounds = feedList.getCellBounds(index, index);
+        if (cellBounds == null || !cellBounds.contains(e.getPoint())) {
+            return;
+        }
 
-        return captionLabel;
+        Picture picture = feedModel.get(index);
+        if (feedRenderer.isOverImage(cellBounds, e.getPoint())) {
+            displayImage(picture); // Call a method to switch to the image view
+        } else if (feedRenderer.isOverLikeButton(cellBounds, e.getPoint())) {
+            controller.addLike(picture);
+            feedList.repaint(cellBounds);
+        }
     }
 
-    private JLabel getLikesLabel(int count) {
-        JLabel likesLabel = new JLabel("Likes: " + count);
-        likesLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        return likesLabel;
-    }
+    /**
+     * Returns the image of a post, its feed thumbnail. The first time a post comes into view its thumbnail
+     * is requested from the image loader and a placeholder is returned until the decode finishes.
+     * Called by the cell renderer, so only for posts that are painted.
+     *
+     * @param picture The picture of the post.
+     * @return The cropped image, a placeholder while it loads, or {@code null} if the image file could not be read.
+     */
+    private Icon getFeedImage(Picture picture) {
+        String pictureId = picture.getPictureID();
+        if (decodedImages.containsKey(pictureId)) {
+            return decodedImages.get(pictureId);
+        }
 
-    private JPanel getSpacingPanel() {
-        // Grey spacing panel
-        JPanel spacingPanel = new JPanel();
-        spacingPanel.setPreferredSize(new Dimension(WIDTH - 10, 5)); // Set the height for spacing
-        spacingPanel.setBackground(getColor(ColorID.MAIN_BACKGROUND)); // Grey color for spacing
-        return spacingPanel;
+        if (!pendingImages.containsKey(pictureId)) {
+            pendingImages.put(pictureId, ImageLoader.getInstance().loadThumbnail(picture, Thumbnail.FEED, imageIcon -> {
+                if (pendingImages.remove(pictureId) != null) {
+                    decodedImages.put(pictureId, imageIcon);
+                    feedList.repaint();
+                }
+            }));
+        }
+        return feedPlaceholder;
     }
 
-    private JLabel getImageLabel(String picturePath) {
-        // Crop the image to the fixed size
-        JLabel imageLabel = new JLabel();
-        imageLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        imageLabel.setPreferredSize(new Dimension(IMAGE_WIDTH, IMAGE_HEIGHT));
-        imageLabel.setBorder(BorderFactory.createLineBorder(Color.BLACK)); // Add border to image label DO NOT CHANGE COLOR
-        try {
-            BufferedImage originalImage = ImageIO.read(new File(picturePath));
-            BufferedImage croppedImage = originalImage.getSubimage(0, 0,
-                    Math.min(originalImage.getWidth(), IMAGE_WIDTH),
-                    Math.min(originalImage.getHeight(), IMAGE_HEIGHT));
-            ImageIcon imageIcon = new ImageIcon(croppedImage);
-            imageLabel.setIcon(imageIcon);
-        } catch (IOException ex) {
-            // Handle exception: Image file not found or reading error
-            imageLabel.setText("Image not found");
+    /**
+     * Drops the decoded images of the posts that scrolled further than {@code OVERSCAN} posts out of view,
+     * and cancels the decodes still pending for them, so the number of decoded images stays constant
+     * however long the feed gets and the workers only decode what the user can see.
+     */
+    private void releaseImagesOutOfView() {
+        int first = feedList.getFirstVisibleIndex();
+        int last = feedList.getLastVisibleIndex();
+        if (first < 0) {
+            return;
         }
 
-        return imageLabel;
+        int keepFrom = Math.max(0, first - OVERSCAN);
+        int keepTo = Math.min(feedModel.size() - 1, last + OVERSCAN);
+        HashMap<String, Icon> kept = new HashMap<>();
+        HashMap<String, Future<Icon>> stillPending = new HashMap<>();
+        for (int i = keepFrom; i <= keepTo; i++) {
+            String pictureId = feedModel.get(i).getPictureID();
+            if (decodedImages.containsKey(pictureId)) {
+                kept.put(pictureId, decodedImages.get(pictureId));
+            }
+            if (pendingImages.containsKey(pictureId)) {
+                stillPending.put(pictureId, pendingImages.remove(pictureId));
+            }
+        }
+        for (Future<Icon> request : pendingImages.values()) {
+            request.cancel(false);
+        }
+        decodedImages = kept;
+        pendingImages = stillPending;
     }
 
     private JPanel getUserPanel(Picture picture) {
@@ -259,16 +301,19 @@ public class QuakstagramHomeUI extends AbstractPostLogin {
         JLabel fullSizeImageLabel = new JLabel();
         fullSizeImageLabel.setHorizontalAlignment(JLabel.CENTER);
 
-        try {
-            BufferedImage originalImage = ImageIO.read(new File(picture.getPath()));
-            BufferedImage croppedImage = originalImage.getSubimage(0, 0, Math.min(originalImage.getWidth(), WIDTH - 20),
-                    Math.min(originalImage.getHeight(), HEIGHT - 40));
-            ImageIcon imageIcon = new ImageIcon(croppedImage);
-            fullSizeImageLabel.setIcon(imageIcon);
-        } catch (IOException ex) {
-            // Handle exception: Image file not found or reading error
-            fullSizeImageLabel.setText("Image not found");
+        // Decoded in the background, the image view opens right away with a placeholder
+        if (pendingFullSizeImage != null) {
+            pendingFullSizeImage.cancel(false);
         }
+        fullSizeImageLabel.setIcon(ImageLoader.placeholder(WIDTH - 20, HEIGHT - 40));
+        pendingFullSizeImage = ImageLoader.getInstance().load(picture.getPath(), WIDTH - 20, HEIGHT - 40,
+                ImageLoader.Fit.CROP, imageIcon -> {
+                    fullSizeImageLabel.setIcon(imageIcon);
+                    if (imageIcon == null) {
+                        // Handle exception: Image file not found or reading error
+                        fullSizeImageLabel.setText("Image not found");
+                    }
+                });
 
         JPanel userPanel = getUserPanel(picture);
         JPanel infoPanel = getInfoPanel(picture);
@@ -286,7 +331,7 @@ public class QuakstagramHomeUI extends AbstractPostLogin {
     }
 
     private JButton getLikeButton(Picture picture, JLabel likesLabel) {
-        JButton likeButton = new JButton("❤");
+        JButton likeButton = new JButton(FeedCellRenderer.likeButtonText(picture, getCurrentUser().getUsername()));
         likeButton.setAlignmentX(Component.LEFT_ALIGNMENT);
         likeButton.setBackground(getColor(ColorID.LIKE_BUTTON)); // Set the background color for the like button
         //System.out.println("QUAKSTAGRAM Like button color: " + likeButtonColor2);
@@ -296,8 +341,9 @@ public class QuakstagramHomeUI extends AbstractPostLogin {
         likeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                int newLikes = controller.addLike(picture, notificationsUI); // Pass the NotificationsUI instance
+                int newLikes = controller.addLike(picture);
                 likesLabel.setText("Likes: " + newLikes);
+                likeButton.setText(FeedCellRenderer.likeButtonText(picture, getCurrentUser().getUsername()));
             }
         });
         
@@ -5,7 +5,6 @@ import javax.swing.JFrame;
 import quackstagram.models.User;
 import quackstagram.views.postlogin.AbstractPostLogin;
 import quackstagram.views.postlogin.NavigationCommand;
-import quackstagram.views.postlogin.NotificationsUI;
 import quackstagram.views.postlogin.QuakstagramHomeUI;
 
 /**
@@ -37,16 +36,14 @@ public class OpenHomeUICommand extends JFrame implements NavigationCommand {
 
     /**
      * Opens the QuakstagramHomeUI frame and makes it visible. It disposes of the current UI
-     * frame as part of the navigation process. Also initializes and integrates the NotificationsUI
-     * with the home UI.
+     * frame as part of the navigation process.
      *
      * @param currentUser The User object representing the currently logged-in user.
      */
     public void openHomeUI(User currentUser) {
         // Open InstagramProfileUI frame
         this.dispose();
-        NotificationsUI notificationsUI = new NotificationsUI(currentUser);
-        QuakstagramHomeUI homeUI = new QuakstagramHomeUI(currentUser, notificationsUI);
+        QuakstagramHomeUI homeUI = new QuakstagramHomeUI(currentUser);
         homeUI.setVisible(true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package quackstagram.views.postlogin.components;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.function.Function;
+
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.Icon;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+
+import quackstagram.models.Picture;
+import quackstagram.views.ColorID;
+import quackstagram.views.Theme;
+
+/**
+ * Renders one post of the home feed (owner, image, caption, like count and like button) as a cell of a
+ * {@link JList}. A single set of components is reused for every cell, and the list only asks for the cells
+ * currently in view, so the number of components and decoded images does not grow with the feed.
+ * Since the cell components are only painted, the list forwards clicks through {@link #isOverImage} and
+ * {@link #isOverLikeButton}.
+ */
+public class FeedCellRenderer extends JPanel implements ListCellRenderer<Picture> {
+    private static final long serialVersionUID = 1L;
+
+    private final JLabel nameLabel = new JLabel();
+    private final JLabel imageLabel = new JLabel();
+    private final JLabel captionLabel = new JLabel();
+    private final JLabel likesLabel = new JLabel();
+    private final JButton likeButton = new JButton("❤");
+    private final Function<Picture, Icon> imageProvider; // Image of a post, only called for cells in view
+    private final String currentUsername; // Posts this user liked show a liked button
+    private Theme theme = Theme.getInstance(); // Theme instance for styling
+
+    /**
+     * Constructs a renderer whose images have the given size.
+     *
+     * @param imageWidth The width of the image of a post.
+     * @param imageHeight The height of the image of a post.
+     * @param imageProvider Supplies the image of a post when its cell is painted.
+     * @param currentUsername The username of the user viewing the feed.
+     */
+    public FeedCellRenderer(int imageWidth, int imageHeight, Function<Picture, Icon> imageProvider,
+            String currentUsername) {
+        this.imageProvider = imageProvider;
+        this.currentUsername = currentUsername;
+        Color textPrimaryColor = theme.getColor(ColorID.TEXT_PRIMARY);
+
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBackground(theme.getColor(ColorID.MAIN_BACKGROUND));
+        // 5px around the post, plus 5px spacing to the next post
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 10, 5));
+
+        imageLabel.setPreferredSize(new Dimension(imageWidth, imageHeight));
+        imageLabel.setBorder(BorderFactory.createLineBorder(Color.BLACK)); // DO NOT CHANGE COLOR
+
+        likeButton.setBackground(theme.getColor(ColorID.LIKE_BUTTON));
+        likeButton.setOpaque(true);
+        likeButton.setBorderPainted(false);
+
+        for (JLabel label : new JLabel[] { nameLabel, imageLabel, captionLabel, likesLabel }) {
+            label.setForeground(textPrimaryColor);
+            label.setAlignmentX(Component.LEFT_ALIGNMENT);
+            add(label);
+        }
+        likeButton.setAlignmentX(Component.LEFT_ALIGNMENT);
+        add(likeButton);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Picture> list, Picture picture, int index,
+            boolean isSelected, boolean cellHasFocus) {
+        nameLabel.setText(picture.getOwner());
+        captionLabel.setText(picture.getCaption());
+        likesLabel.setText("Likes: " + picture.getLikesCount());
+        likeButton.setText(likeButtonText(picture, currentUsername));
+
+        Icon image = imageProvider.apply(picture);
+        imageLabel.setIcon(image);
+        imageLabel.setText(image == null ? "Image not found" : null);
+        return this;
+    }
+
+    /**
+     * Returns the text of the like button of a post, which shows whether the user liked it.
+     *
+     * @param picture The picture of the post.
+     * @param username The username of the user viewing the post.
+     * @return The text of the like button.
+     */
+    public static String likeButtonText(Picture picture, String username) {
+        return picture.isLikedBy(username) ? "❤ Liked" : "❤";
+    }
+
+    /**
+     * Checks whether a point of a cell lies on the image of the post.
+     *
+     * @param cellBounds The bounds of the cell within the list.
+     * @param point The point, in list coordinates.
+     * @return {@code true} if the point is on the image.
+     */
+    public boolean isOverImage(Rectangle cellBounds, Point point) {
+        return boundsInList(imageLabel, cellBounds).contains(point);
+    }
+
+    /**
+     * Checks whether a point of a cell lies on the like button of the post.
+     *
+     * @param cellBounds The bounds of the cell within the list.
+     * @param point The point, in list coordinates.
+     * @return {@code true} if the point is on the like button.
+     */
+    public boolean isOverLikeButton(Rectangle cellBounds, Point point) {
+        return boundsInList(likeButton, cellBounds).contains(point);
+    }
+
+    private Rectangle boundsInList(Component child, Rectangle cellBounds) {
+        setSize(cellBounds.getSize());
+        doLayout();
+        Rectangle bounds = child.getBounds();
+        bounds.translate(cellBounds.x, cellBounds.y);
+        return bounds;
+    }
+}
@@ -6,11 +6,9 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
-import java.awt.Image;
 
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
@@ -22,6 +20,7 @@ import javax.swing.SwingConstants;
 import quackstagram.controllers.postlogin.InstagramProfileController;
 import quackstagram.models.User;
 import quackstagram.views.ColorID;
+import quackstagram.views.ImageLoader;
 import quackstagram.views.Theme;
 import quackstagram.views.postlogin.InstagramProfileUI;
 
@@ -75,11 +74,9 @@ public class InstagramUIComponents {
         topHeaderPanel.setBackground(minorBackgroundColor);
 
         // Profile image
-        ImageIcon profileIcon = new ImageIcon(
-                new ImageIcon(targetUser.getProfileImagePath())
-                        .getImage()
-                        .getScaledInstance(PROFILE_IMAGE_SIZE, PROFILE_IMAGE_SIZE, Image.SCALE_SMOOTH));
-        JLabel profileImage = new JLabel(profileIcon);
+        JLabel profileImage = new JLabel(ImageLoader.placeholder(PROFILE_IMAGE_SIZE, PROFILE_IMAGE_SIZE));
+        ImageLoader.getInstance().load(targetUser.getProfileImagePath(), PROFILE_IMAGE_SIZE, PROFILE_IMAGE_SIZE,
+                ImageLoader.Fit.SCALE, profileImage::setIcon);
         profileImage.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         topHeaderPanel.add(profileImage, BorderLayout.WEST);
 
@@ -153,7 +150,7 @@ public class InstagramUIComponents {
             followButton.addActionListener(e -> showThemeSelectionMenu(followButton));
         } else {
             // Check if the current user is already being followed by the logged-in user
-            if (this.currentUser.followsUser(targetUser)) {
+            if (controller.isFollowing()) {
                 followButton = new JButton("Following");
             } else {
                 followButton = new JButton("Follow");